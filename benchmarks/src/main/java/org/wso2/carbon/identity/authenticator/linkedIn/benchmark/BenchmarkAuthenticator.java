@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticator;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * LinkedIn authenticator exposing the protected steps of a login. Point it at a {@link StubLinkedInServer} through
+ * the endpoint URL properties of the identity provider.
+ */
+public class BenchmarkAuthenticator extends LinkedInAuthenticator {
+
+    private final LinkedInMetrics metrics = new LinkedInMetrics(null, null);
+
+    public void initiate(HttpServletRequest request, HttpServletResponse response, AuthenticationContext context)
+            throws AuthenticationFailedException {
+        initiateAuthenticationRequest(request, response, context);
+    }
+
+    public void process(HttpServletRequest request, HttpServletResponse response, AuthenticationContext context)
+            throws AuthenticationFailedException {
+        processAuthenticationResponse(request, response, context);
+    }
+
+    public Map<ClaimMapping, String> claims(OAuthClientResponse token, AuthenticationContext context)
+            throws ApplicationAuthenticatorException, AuthenticationFailedException {
+        return buildClaims(token, getIdpConfig(context), LoginFlow.start(metrics, null));
+    }
+}
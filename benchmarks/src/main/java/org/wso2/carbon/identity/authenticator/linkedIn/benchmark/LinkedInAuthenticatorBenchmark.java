@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponseFactory;
+import org.apache.oltu.oauth2.client.response.OAuthJSONAccessTokenResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Benchmarks of the LinkedIn authenticator hot paths. The remote calls go to an in-process
+ * {@link StubLinkedInServer}, so the numbers reflect the cost of the authenticator and its http stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkedInAuthenticatorBenchmark {
+
+    private static final String TOKEN_RESPONSE = "{\"access_token\":\"AQXdSP_W41_UPs5ioT_t8HESyODB4Fqbk\"," +
+                                                 "\"expires_in\":5183999}";
+
+    @Param({"BASIC", "RICH"})
+    public String profile;
+
+    private StubLinkedInServer server;
+    private LoginFixture fixture;
+    private BenchmarkAuthenticator authenticator;
+    private HttpServletRequest callbackRequest;
+    private HttpServletRequest unrelatedRequest;
+    private HttpServletResponse response;
+    private OAuthClientResponse token;
+    private AuthenticationContext claimsContext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new StubLinkedInServer("RICH".equals(profile) ? Profiles.RICH : Profiles.BASIC);
+        server.start();
+        fixture = new LoginFixture(server, Collections.<String, String>emptyMap());
+        authenticator = fixture.getAuthenticator();
+        callbackRequest = fixture.callbackRequest("AQTdWJe4tRzMGGbHDx9b",
+                                                  fixture.newState(UUID.randomUUID().toString()));
+        Map<String, String> unrelatedParameters = new HashMap<>();
+        unrelatedParameters.put("sessionDataKey", UUID.randomUUID().toString());
+        unrelatedRequest = ServletStubs.request(unrelatedParameters);
+        response = ServletStubs.response();
+        token = OAuthClientResponseFactory.createCustomResponse(TOKEN_RESPONSE, "application/json", 200,
+                                                                OAuthJSONAccessTokenResponse.class);
+        claimsContext = fixture.newContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public boolean canHandleCallback() {
+        return authenticator.canHandle(callbackRequest);
+    }
+
+    @Benchmark
+    public boolean canHandleUnrelatedRequest() {
+        return authenticator.canHandle(unrelatedRequest);
+    }
+
+    @Benchmark
+    public AuthenticationContext initiateAuthenticationRequest() throws AuthenticationFailedException {
+        AuthenticationContext context = fixture.newContext();
+        authenticator.initiate(callbackRequest, response, context);
+        return context;
+    }
+
+    @Benchmark
+    public Map<ClaimMapping, String> buildClaims()
+            throws ApplicationAuthenticatorException, AuthenticationFailedException {
+        return authenticator.claims(token, claimsContext);
+    }
+
+    @Benchmark
+    public AuthenticationContext processAuthenticationResponse() throws AuthenticationFailedException {
+        AuthenticationContext context = fixture.newContext();
+        authenticator.process(callbackRequest, response, context);
+        return context;
+    }
+}
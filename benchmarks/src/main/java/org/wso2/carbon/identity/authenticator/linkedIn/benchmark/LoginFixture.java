@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.internal.LinkedInAuthenticatorDataHolder;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransportConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A LinkedIn identity provider wired to a {@link StubLinkedInServer}, with the http transport the authenticator
+ * component would create on activation.
+ */
+public class LoginFixture {
+
+    private final LinkedInHttpTransport httpTransport;
+    private final BenchmarkAuthenticator authenticator;
+    private final Map<String, String> authenticatorProperties;
+    private final ExternalIdPConfig externalIdPConfig;
+    private final StateSigner stateSigner;
+
+    /**
+     * Create the fixture.
+     *
+     * @param server     the stub server the identity provider points at
+     * @param parameters authenticator parameters, as configured in application-authentication.xml. An ApiVersion
+     *                   of v2 points the identity provider at the v2 endpoints of the stub
+     */
+    public LoginFixture(StubLinkedInServer server, Map<String, String> parameters) {
+        httpTransport = new LinkedInHttpTransport(LinkedInHttpTransportConfig.fromParameters(parameters));
+        LinkedInAuthenticatorDataHolder.getInstance().setHttpTransport(httpTransport);
+        stateSigner = new StateSigner("benchmark-state-signing-key".getBytes(StandardCharsets.UTF_8), 900000L);
+        LinkedInAuthenticatorDataHolder.getInstance().setStateSigner(stateSigner);
+        authenticator = new BenchmarkAuthenticator();
+
+        authenticatorProperties = new HashMap<>();
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_ID, "77x7ksu1g2c9pd");
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_SECRET, "Z9sJpw3Ty8Q1vX0c");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.CALLBACK_URL,
+                                    "https://localhost:9443/commonauth");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.OAUTH2_AUTHZ_URL, server.getAuthorizeUrl());
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.OAUTH2_TOKEN_URL, server.getTokenUrl());
+        if (LinkedInAuthenticatorConstants.API_VERSION_V2.equals(
+                parameters.get(LinkedInAuthenticatorConstants.API_VERSION))) {
+            authenticatorProperties.put(LinkedInAuthenticatorConstants.API_VERSION,
+                                        LinkedInAuthenticatorConstants.API_VERSION_V2);
+            authenticatorProperties.put(LinkedInAuthenticatorConstants.USER_INFO_URL, server.getV2ProfileUrl());
+            authenticatorProperties.put(LinkedInAuthenticatorConstants.EMAIL_ADDRESS_URL,
+                                        server.getV2EmailAddressUrl());
+        } else {
+            authenticatorProperties.put(LinkedInAuthenticatorConstants.USER_INFO_URL, server.getUserInfoUrl());
+        }
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName("LinkedIn");
+        identityProvider.setClaimConfig(new ClaimConfig());
+        externalIdPConfig = new ExternalIdPConfig(identityProvider);
+    }
+
+    public BenchmarkAuthenticator getAuthenticator() {
+        return authenticator;
+    }
+
+    public Map<String, String> getAuthenticatorProperties() {
+        return authenticatorProperties;
+    }
+
+    /**
+     * Create the authentication context of a new login.
+     *
+     * @return authentication context
+     */
+    public AuthenticationContext newContext() {
+        AuthenticationContext context = new AuthenticationContext();
+        context.setContextIdentifier(UUID.randomUUID().toString());
+        context.setAuthenticatorProperties(authenticatorProperties);
+        context.setExternalIdP(externalIdPConfig);
+        return context;
+    }
+
+    /**
+     * Create the signed state the authenticator sends with the authorization request of a login.
+     *
+     * @param contextIdentifier the authentication context identifier
+     * @return the signed state
+     */
+    public String newState(String contextIdentifier) {
+        return stateSigner.sign(contextIdentifier + "," + LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE);
+    }
+
+    /**
+     * Create the callback request LinkedIn redirects the browser to.
+     *
+     * @param code  the authorization code
+     * @param state the state
+     * @return the callback request
+     */
+    public HttpServletRequest callbackRequest(String code, String state) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE, code);
+        parameters.put(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE, state);
+        return ServletStubs.request(parameters);
+    }
+
+    public void close() {
+        LinkedInAuthenticatorDataHolder.getInstance().setHttpTransport(null);
+        LinkedInAuthenticatorDataHolder.getInstance().setStateSigner(null);
+        httpTransport.close();
+    }
+}
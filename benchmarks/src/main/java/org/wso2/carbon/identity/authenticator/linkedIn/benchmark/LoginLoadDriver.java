@@ -0,0 +1,278 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded load driver for complete LinkedIn logins against a {@link StubLinkedInServer}. Each login builds
+ * the redirect, follows it to the stub authorize endpoint like a browser would and processes the callback, which
+ * exchanges the code and fetches the profile. Throughput and login latency percentiles are reported for each
+ * concurrency level.
+ * <p>
+ * System properties: {@code concurrency} (comma separated levels), {@code duration} and {@code warmup}
+ * (seconds per level), the stub settings {@code latency}, {@code latencyJitter}, {@code errorRate} and
+ * {@code payloadSize}, and authenticator parameters prefixed with {@code linkedin.}, for example
+ * {@code -Dlinkedin.HttpMaxTotalConnections=200}.
+ */
+public class LoginLoadDriver {
+
+    private static final String PARAMETER_PREFIX = "linkedin.";
+
+    private final LoginFixture fixture;
+
+    public LoginLoadDriver(LoginFixture fixture) {
+        this.fixture = fixture;
+    }
+
+    public static void main(String[] args) throws Exception {
+        StubLinkedInServer server = new StubLinkedInServer(Profiles.BASIC);
+        server.setLatency(Long.getLong("latency", 0L), Long.getLong("latencyJitter", 0L));
+        server.setErrorRate(Double.parseDouble(System.getProperty("errorRate", "0")));
+        server.setPayloadSize(Integer.getInteger("payloadSize", 0));
+        server.start();
+        Map<String, String> parameters = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PARAMETER_PREFIX)) {
+                parameters.put(name.substring(PARAMETER_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        LoginFixture fixture = new LoginFixture(server, parameters);
+        try {
+            LoginLoadDriver driver = new LoginLoadDriver(fixture);
+            long duration = TimeUnit.SECONDS.toNanos(Long.getLong("duration", 20L));
+            long warmup = TimeUnit.SECONDS.toNanos(Long.getLong("warmup", 5L));
+            System.out.println(String.format("%11s %12s %9s %9s %9s %9s %8s", "concurrency", "logins/s",
+                                             "p50 ms", "p99 ms", "p999 ms", "max ms", "errors"));
+            for (String level : System.getProperty("concurrency", "1,4,16,64").split(",")) {
+                int concurrency = Integer.parseInt(level.trim());
+                driver.run(concurrency, warmup);
+                Result result = driver.run(concurrency, duration);
+                System.out.println(String.format("%11d %12.1f %9.2f %9.2f %9.2f %9.2f %8d", concurrency,
+                                                 result.getThroughput(), result.percentile(0.50),
+                                                 result.percentile(0.99), result.percentile(0.999),
+                                                 result.percentile(1.0), result.errors));
+            }
+        } finally {
+            fixture.close();
+            server.stop();
+        }
+    }
+
+    /**
+     * Run logins from the given number of threads for the given time.
+     *
+     * @param concurrency number of concurrent logins
+     * @param duration    run time in nanoseconds
+     * @return the result of the run
+     * @throws InterruptedException
+     */
+    public Result run(int concurrency, final long duration) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(start, duration);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "login-driver-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        int count = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            count += worker.count;
+            errors += worker.errors;
+        }
+        long[] latencies = new long[count];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, elapsed);
+    }
+
+    /**
+     * Run one complete login.
+     *
+     * @throws Exception if the login fails
+     */
+    private void login() throws Exception {
+        BenchmarkAuthenticator authenticator = fixture.getAuthenticator();
+        AuthenticationContext context = fixture.newContext();
+        AtomicReference<String> redirect = new AtomicReference<>();
+        authenticator.initiate(ServletStubs.request(Collections.<String, String>emptyMap()),
+                              ServletStubs.response(redirect), context);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(redirect.get()).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        int status = connection.getResponseCode();
+        String location = connection.getHeaderField("Location");
+        drain(connection);
+        if (status != HttpURLConnection.HTTP_MOVED_TEMP || location == null) {
+            throw new IOException("Authorize endpoint responded with status " + status);
+        }
+        Map<String, String> callback = parseQuery(location.substring(location.indexOf('?') + 1));
+        authenticator.process(fixture.callbackRequest(
+                callback.get(LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE),
+                callback.get(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE)), ServletStubs.response(), context);
+        if (context.getSubject() == null) {
+            throw new IllegalStateException("Login completed without a subject");
+        }
+    }
+
+    private static void drain(HttpURLConnection connection) throws IOException {
+        InputStream inputStream = connection.getErrorStream();
+        if (inputStream == null) {
+            try {
+                inputStream = connection.getInputStream();
+            } catch (IOException e) {
+                return;
+            }
+        }
+        byte[] buffer = new byte[1024];
+        try {
+            while (inputStream.read(buffer) != -1) {
+                // read to the end so that the connection is kept alive
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(pair.substring(0, separator), URLDecoder.decode(pair.substring(separator + 1),
+                                                                               "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private class Worker implements Runnable {
+
+        private final CountDownLatch start;
+        private final long duration;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Worker(CountDownLatch start, long duration) {
+            this.start = start;
+            this.duration = duration;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long end = System.nanoTime() + duration;
+            while (System.nanoTime() < end) {
+                long begin = System.nanoTime();
+                try {
+                    login();
+                } catch (Exception e) {
+                    errors++;
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - begin;
+            }
+        }
+    }
+
+    /**
+     * Result of a run at one concurrency level.
+     */
+    public static class Result {
+
+        private final long[] latencies;
+        private final long errors;
+        private final long elapsed;
+
+        private Result(long[] latencies, long errors, long elapsed) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * Get the completed logins per second.
+         *
+         * @return throughput
+         */
+        public double getThroughput() {
+            return latencies.length / (elapsed / 1e9);
+        }
+
+        /**
+         * Get a login latency percentile.
+         *
+         * @param quantile the quantile, from 0 to 1
+         * @return the latency in milliseconds
+         */
+        public double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+    }
+}
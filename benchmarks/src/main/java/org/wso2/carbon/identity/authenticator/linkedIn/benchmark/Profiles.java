@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+/**
+ * LinkedIn user info payloads used by the benchmarks.
+ */
+public class Profiles {
+
+    /**
+     * The fields requested by the authenticator, as returned for a typical member.
+     */
+    public static final String BASIC = "{\n" +
+            "  \"emailAddress\": \"jane.doe@example.com\",\n" +
+            "  \"firstName\": \"Jane\",\n" +
+            "  \"headline\": \"Senior Software Engineer at Example Corp\",\n" +
+            "  \"id\": \"1R2RtA-2Xy\",\n" +
+            "  \"industry\": \"Computer Software\",\n" +
+            "  \"lastName\": \"Doe\"\n" +
+            "}";
+
+    /**
+     * A profile with long, escaped and nested values, as returned for a member with a filled in profile.
+     */
+    public static final String RICH = "{\n" +
+            "  \"emailAddress\": \"jean-fran\\u00e7ois.dupont-lef\\u00e8vre@example.co.uk\",\n" +
+            "  \"firstName\": \"Jean-Fran\\u00e7ois\",\n" +
+            "  \"headline\": \"Principal Architect \\u2022 Identity & Access Management \\u2022 " +
+            "Cloud Security \\u2022 Speaker \\\"IAM at scale\\\" \\u2022 Open source contributor\",\n" +
+            "  \"id\": \"x7Kq_3vBzP\",\n" +
+            "  \"industry\": \"Information Technology and Services\",\n" +
+            "  \"lastName\": \"Dupont-Lef\\u00e8vre\",\n" +
+            "  \"location\": {\"country\": {\"code\": \"gb\"}, \"name\": \"London, United Kingdom\"},\n" +
+            "  \"positions\": {\"_total\": 2, \"values\": [" +
+            "{\"company\": {\"name\": \"Example Corp\"}, \"isCurrent\": true, \"title\": \"Principal Architect\"}, " +
+            "{\"company\": {\"name\": \"Sample Ltd\"}, \"isCurrent\": false, \"title\": \"Security Engineer\"}]}\n" +
+            "}";
+
+    /**
+     * The v2 lite profile of the member of {@link #BASIC}.
+     */
+    public static final String V2_LITE = "{\n" +
+            "  \"firstName\": {\"localized\": {\"en_US\": \"Jane\"}, " +
+            "\"preferredLocale\": {\"country\": \"US\", \"language\": \"en\"}},\n" +
+            "  \"id\": \"1R2RtA-2Xy\",\n" +
+            "  \"lastName\": {\"localized\": {\"en_US\": \"Doe\"}, " +
+            "\"preferredLocale\": {\"country\": \"US\", \"language\": \"en\"}},\n" +
+            "  \"localizedFirstName\": \"Jane\",\n" +
+            "  \"localizedHeadline\": \"Senior Software Engineer at Example Corp\",\n" +
+            "  \"localizedLastName\": \"Doe\"\n" +
+            "}";
+
+    /**
+     * The v2 email address response of the member of {@link #BASIC}.
+     */
+    public static final String V2_EMAIL_ADDRESS = "{\n" +
+            "  \"elements\": [{\"handle\": \"urn:li:emailAddress:3775708763\", " +
+            "\"handle~\": {\"emailAddress\": \"jane.doe@example.com\"}}]\n" +
+            "}";
+
+    private Profiles() {
+    }
+}
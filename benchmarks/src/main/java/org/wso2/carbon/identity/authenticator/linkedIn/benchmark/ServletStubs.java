@@ -0,0 +1,115 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Minimal servlet request and response stand-ins for driving the authenticator outside a container.
+ */
+public class ServletStubs {
+
+    private ServletStubs() {
+    }
+
+    /**
+     * Create a GET request carrying the given query parameters.
+     *
+     * @param parameters the request parameters
+     * @return the request
+     */
+    public static HttpServletRequest request(Map<String, String> parameters) {
+        final Map<String, String[]> parameterMap = new HashMap<>();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            parameterMap.put(parameter.getKey(), new String[]{parameter.getValue()});
+        }
+        return (HttpServletRequest) Proxy.newProxyInstance(ServletStubs.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getParameter":
+                                String[] values = parameterMap.get(args[0]);
+                                return values != null ? values[0] : null;
+                            case "getParameterValues":
+                                return parameterMap.get(args[0]);
+                            case "getParameterMap":
+                                return parameterMap;
+                            case "getParameterNames":
+                                return Collections.enumeration(parameterMap.keySet());
+                            case "getMethod":
+                                return "GET";
+                            default:
+                                return defaultValue(method);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Create a response which ignores everything written to it.
+     *
+     * @return the response
+     */
+    public static HttpServletResponse response() {
+        return response(new AtomicReference<String>());
+    }
+
+    /**
+     * Create a response which records the location it is redirected to.
+     *
+     * @param redirect receives the redirect location
+     * @return the response
+     */
+    public static HttpServletResponse response(final AtomicReference<String> redirect) {
+        return (HttpServletResponse) Proxy.newProxyInstance(ServletStubs.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("sendRedirect".equals(method.getName())) {
+                            redirect.set((String) args[0]);
+                        }
+                        return defaultValue(method);
+                    }
+                });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Self-contained stand-in for the LinkedIn authorize, accessToken and people endpoints, and the profile and email
+ * address endpoints of the v2 API. Response latency, the
+ * rate of failed responses and the profile payload size are configurable, so logins can be load tested without
+ * calling LinkedIn.
+ * <p>
+ * Run it standalone with {@code java -cp benchmarks.jar ...StubLinkedInServer [port]} and the system properties
+ * {@code latency}, {@code latencyJitter} (milliseconds), {@code errorRate} (0 to 1) and {@code payloadSize}
+ * (bytes), then point the authorization, token and user info endpoint URLs of the identity provider at it.
+ */
+public class StubLinkedInServer {
+
+    public static final String AUTHORIZE_PATH = "/uas/oauth2/authorization";
+    public static final String TOKEN_PATH = "/uas/oauth2/accessToken";
+    public static final String PEOPLE_PATH = "/v1/people/";
+    public static final String PEOPLE_QUERY =
+            "~:(id,first-name,last-name,industry,headline,email-address)?format=json";
+    public static final String V2_PROFILE_PATH = "/v2/me";
+    public static final String V2_EMAIL_ADDRESS_PATH = "/v2/emailAddress";
+    public static final String V2_EMAIL_ADDRESS_QUERY = "?q=members&projection=(elements*(handle~))";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile String profile;
+    private volatile byte[] profileBytes;
+    private volatile long latency;
+    private volatile long latencyJitter;
+    private volatile double errorRate;
+
+    public StubLinkedInServer(String profile) throws IOException {
+        this(0, profile);
+    }
+
+    public StubLinkedInServer(int port, String profile) throws IOException {
+        setProfile(profile);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext(AUTHORIZE_PATH, new StubHandler() {
+            @Override
+            protected void respond(HttpExchange exchange) throws IOException {
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                String location = query.get("redirect_uri") + "?code=" + nextValue("code") + "&state=" +
+                                  URLEncoder.encode(String.valueOf(query.get("state")), "UTF-8");
+                exchange.getResponseHeaders().set("Location", location);
+                exchange.sendResponseHeaders(302, -1);
+            }
+        });
+        server.createContext(TOKEN_PATH, new StubHandler() {
+            @Override
+            protected void respond(HttpExchange exchange) throws IOException {
+                sendJson(exchange, ("{\"access_token\":\"" + nextValue("AQXdSP_W41") + "\"," +
+                                    "\"expires_in\":5183999}").getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext(PEOPLE_PATH, new StubHandler() {
+            @Override
+            protected void respond(HttpExchange exchange) throws IOException {
+                sendJson(exchange, profileBytes);
+            }
+        });
+        server.createContext(V2_PROFILE_PATH, new StubHandler() {
+            @Override
+            protected void respond(HttpExchange exchange) throws IOException {
+                sendJson(exchange, Profiles.V2_LITE.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext(V2_EMAIL_ADDRESS_PATH, new StubHandler() {
+            @Override
+            protected void respond(HttpExchange exchange) throws IOException {
+                sendJson(exchange, Profiles.V2_EMAIL_ADDRESS.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8765;
+        StubLinkedInServer server = new StubLinkedInServer(port, Profiles.BASIC);
+        server.setLatency(Long.getLong("latency", 0L), Long.getLong("latencyJitter", 0L));
+        server.setErrorRate(Double.parseDouble(System.getProperty("errorRate", "0")));
+        server.setPayloadSize(Integer.getInteger("payloadSize", 0));
+        server.start();
+        System.out.println("LinkedIn stub server listening on " + server.getBaseUrl());
+        System.out.println("  authorize: " + server.getAuthorizeUrl());
+        System.out.println("  token:     " + server.getTokenUrl());
+        System.out.println("  user info: " + server.getUserInfoUrl());
+        System.out.println("  v2 profile: " + server.getV2ProfileUrl());
+        System.out.println("  v2 email address: " + server.getV2EmailAddressUrl());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public void setProfile(String profile) {
+        this.profile = profile;
+        this.profileBytes = profile.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Pad the profile with a summary field so that the user info response is at least the given size.
+     *
+     * @param payloadSize the payload size in bytes
+     */
+    public void setPayloadSize(int payloadSize) {
+        byte[] base = profile.getBytes(StandardCharsets.UTF_8);
+        int padding = payloadSize - base.length - "\"summary\":\"\",".length();
+        if (padding <= 0) {
+            profileBytes = base;
+            return;
+        }
+        StringBuilder summary = new StringBuilder(payloadSize);
+        Random random = new Random(payloadSize);
+        for (int i = 0; i < padding; i++) {
+            summary.append((char) ('a' + random.nextInt(26)));
+        }
+        int start = profile.indexOf('{') + 1;
+        profileBytes = (profile.substring(0, start) + "\"summary\":\"" + summary + "\"," + profile.substring(start))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Delay every response.
+     *
+     * @param latency the fixed delay in milliseconds
+     * @param jitter  the maximum random delay in milliseconds added to the fixed delay
+     */
+    public void setLatency(long latency, long jitter) {
+        this.latency = latency;
+        this.latencyJitter = jitter;
+    }
+
+    /**
+     * Fail a share of the responses with a 500 status.
+     *
+     * @param errorRate the share of failed responses, from 0 to 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Get the base URL of the server, for example http://127.0.0.1:41234.
+     *
+     * @return base URL
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getAuthorizeUrl() {
+        return getBaseUrl() + AUTHORIZE_PATH;
+    }
+
+    public String getTokenUrl() {
+        return getBaseUrl() + TOKEN_PATH;
+    }
+
+    public String getUserInfoUrl() {
+        return getBaseUrl() + PEOPLE_PATH + PEOPLE_QUERY;
+    }
+
+    public String getV2ProfileUrl() {
+        return getBaseUrl() + V2_PROFILE_PATH;
+    }
+
+    public String getV2EmailAddressUrl() {
+        return getBaseUrl() + V2_EMAIL_ADDRESS_PATH + V2_EMAIL_ADDRESS_QUERY;
+    }
+
+    private String nextValue(String prefix) {
+        return prefix + "-" + sequence.incrementAndGet();
+    }
+
+    private static void sendJson(HttpExchange exchange, byte[] response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(response);
+        outputStream.close();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                               URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private abstract class StubHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                drain(exchange);
+                delay();
+                if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+                respond(exchange);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        protected abstract void respond(HttpExchange exchange) throws IOException;
+
+        private void delay() {
+            long delay = latency;
+            if (latencyJitter > 0) {
+                delay += ThreadLocalRandom.current().nextLong(latencyJitter + 1);
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void drain(HttpExchange exchange) throws IOException {
+            byte[] buffer = new byte[1024];
+            while (exchange.getRequestBody().read(buffer) != -1) {
+                // discard the request body so that the connection can be reused
+            }
+        }
+    }
+}
@@ -23,15 +23,14 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.oltu.oauth2.client.OAuthClient;
-import org.apache.oltu.oauth2.client.URLConnectionClient;
 import org.apache.oltu.oauth2.client.request.OAuthClientRequest;
 import org.apache.oltu.oauth2.client.response.OAuthAuthzResponse;
 import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
 import org.apache.oltu.oauth2.common.exception.OAuthProblemException;
 import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
 import org.apache.oltu.oauth2.common.message.types.GrantType;
-import org.json.JSONObject;
 import org.wso2.carbon.identity.application.authentication.framework.FederatedApplicationAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
 import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
 import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
 import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
@@ -39,27 +38,38 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.application.authentication.framework.util.FrameworkUtils;
 import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
 import org.wso2.carbon.identity.application.authenticator.oidc.OpenIDConnectAuthenticator;
-import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.Property;
-import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.LinkedInProfileCache;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.ProfileKey;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoProjection;
+import org.wso2.carbon.identity.authenticator.linkedIn.config.AuthorizationUrlTemplate;
+import org.wso2.carbon.identity.authenticator.linkedIn.config.LinkedInIdpConfig;
+import org.wso2.carbon.identity.authenticator.linkedIn.config.LinkedInIdpConfigCache;
+import org.wso2.carbon.identity.authenticator.linkedIn.internal.LinkedInAuthenticatorDataHolder;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetricsRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+import org.wso2.carbon.identity.authenticator.linkedIn.refresh.ProfileRefresher;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.BulkheadFullException;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInBulkheads;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInCallbackExecutor;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInUserInfoClient;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.SingleFlight;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
-import java.net.MalformedURLException;
-import java.net.ProtocolException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.Callable;
 
 /**
  * Authenticator of linkedIn.
@@ -67,9 +77,16 @@ import java.util.Iterator;
 public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements FederatedApplicationAuthenticator {
 
     private static Log log = LogFactory.getLog(LinkedInAuthenticator.class);
+    private static final LinkedInMetrics UNREGISTERED_METRICS = new LinkedInMetrics(null, null);
+
+    private final LinkedInIdpConfigCache idpConfigCache = new LinkedInIdpConfigCache();
+    private final SingleFlight<String, Map<ClaimMapping, String>> claimRequests = new SingleFlight<>();
+    private final UserInfoProjection userInfoProjection =
+            new UserInfoProjection(LinkedInAuthenticatorConstants.CLAIM_DIALECT_URI);
 
     /**
-     * check weather user can process or not.
+     * check weather user can process or not. Only callbacks with a code and an unexpired state signed by this
+     * authenticator are handled.
      *
      * @param request the request
      * @return true or false
@@ -77,51 +94,96 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
     @Override
     public boolean canHandle(HttpServletRequest request) {
         if (log.isDebugEnabled()) {
-            log.debug("Inside LinkedInOAuth2Authenticator canHandle method and checking whether the code and state " +
-                      "exist");
+            log.debug("Inside LinkedInOAuth2Authenticator canHandle method and checking whether the code and a " +
+                      "valid state exist");
         }
         return request.getParameter(LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE) != null
-                && request.getParameter(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE) != null
-                && (getLoginType(request));
+                && isSignedState(request.getParameter(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE));
     }
 
     /**
-     * check whether the state contain login type or not.
+     * check whether the state was signed by this authenticator and has not expired.
      *
-     * @param request the request
-     * @return login type
+     * @param state the state
+     * @return true if the state is valid
      */
-    private Boolean getLoginType(HttpServletRequest request) {
-        String state = request.getParameter(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE);
-        if (StringUtils.isNotEmpty(state)) {
-            return state.contains(LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE);
-        } else {
+    private boolean isSignedState(String state) {
+        if (StringUtils.isEmpty(state)) {
             return false;
         }
+        StateSigner stateSigner = LinkedInAuthenticatorDataHolder.getInstance().getStateSigner();
+        return stateSigner != null && stateSigner.verify(state);
     }
 
     /**
-     * Get linkedIn authorization endpoint.
+     * Get linkedIn authorization endpoint, unless the identity provider overrides it.
      */
     @Override
     protected String getAuthorizationServerEndpoint(Map<String, String> authenticatorProperties) {
-        return LinkedInAuthenticatorConstants.LINKEDIN_OAUTH_ENDPOINT;
+        return getEndpoint(authenticatorProperties, LinkedInAuthenticatorConstants.OAUTH2_AUTHZ_URL,
+                           isApiV2(authenticatorProperties) ?
+                           LinkedInAuthenticatorConstants.LINKEDIN_V2_OAUTH_ENDPOINT :
+                           LinkedInAuthenticatorConstants.LINKEDIN_OAUTH_ENDPOINT);
     }
 
     /**
-     * Get linkedIn token endpoint.
+     * Get linkedIn token endpoint, unless the identity provider overrides it.
      */
     @Override
     protected String getTokenEndpoint(Map<String, String> authenticatorProperties) {
-        return LinkedInAuthenticatorConstants.LINKEDIN_TOKEN_ENDPOINT;
+        return getEndpoint(authenticatorProperties, LinkedInAuthenticatorConstants.OAUTH2_TOKEN_URL,
+                           isApiV2(authenticatorProperties) ?
+                           LinkedInAuthenticatorConstants.LINKEDIN_V2_TOKEN_ENDPOINT :
+                           LinkedInAuthenticatorConstants.LINKEDIN_TOKEN_ENDPOINT);
     }
 
     /**
-     * Get linkedIn user info endpoint.
+     * Get linkedIn user info endpoint, the profile endpoint of the v2 API, unless the identity provider overrides it.
      */
     @Override
     protected String getUserInfoEndpoint(OAuthClientResponse token, Map<String, String> authenticatorProperties) {
-        return LinkedInAuthenticatorConstants.LINKEDIN_USERINFO_ENDPOINT;
+        return getEndpoint(authenticatorProperties, LinkedInAuthenticatorConstants.USER_INFO_URL,
+                           isApiV2(authenticatorProperties) ?
+                           LinkedInAuthenticatorConstants.LINKEDIN_V2_PROFILE_ENDPOINT :
+                           LinkedInAuthenticatorConstants.LINKEDIN_USERINFO_ENDPOINT);
+    }
+
+    /**
+     * Get linkedIn email address endpoint of the v2 API, unless the identity provider overrides it.
+     *
+     * @param authenticatorProperties the authenticator properties
+     * @return the email address endpoint URL, or null if the identity provider uses the v1 API
+     */
+    protected String getEmailAddressEndpoint(Map<String, String> authenticatorProperties) {
+        if (!isApiV2(authenticatorProperties)) {
+            return null;
+        }
+        return getEndpoint(authenticatorProperties, LinkedInAuthenticatorConstants.EMAIL_ADDRESS_URL,
+                           LinkedInAuthenticatorConstants.LINKEDIN_V2_EMAIL_ADDRESS_ENDPOINT);
+    }
+
+    /**
+     * Check whether the identity provider uses the LinkedIn v2 API.
+     *
+     * @param authenticatorProperties the authenticator properties
+     * @return true for the v2 API, false for the v1 API
+     */
+    private boolean isApiV2(Map<String, String> authenticatorProperties) {
+        return authenticatorProperties != null && LinkedInAuthenticatorConstants.API_VERSION_V2.equalsIgnoreCase(
+                StringUtils.trim(authenticatorProperties.get(LinkedInAuthenticatorConstants.API_VERSION)));
+    }
+
+    /**
+     * Get an endpoint configured for the identity provider, falling back to the LinkedIn endpoint.
+     *
+     * @param authenticatorProperties the authenticator properties
+     * @param property                the property overriding the endpoint
+     * @param defaultEndpoint         the LinkedIn endpoint
+     * @return the endpoint URL
+     */
+    private String getEndpoint(Map<String, String> authenticatorProperties, String property, String defaultEndpoint) {
+        String endpoint = authenticatorProperties != null ? authenticatorProperties.get(property) : null;
+        return StringUtils.isNotBlank(endpoint) ? endpoint.trim() : defaultEndpoint;
     }
 
     /**
@@ -180,6 +242,85 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
         callbackUrl.setDisplayOrder(2);
         configProperties.add(callbackUrl);
 
+        Property useProfileCache = new Property();
+        useProfileCache.setDisplayName("Use Profile Cache");
+        useProfileCache.setName(LinkedInAuthenticatorConstants.USE_PROFILE_CACHE);
+        useProfileCache.setDescription("Enter false to always fetch the LinkedIn profile instead of using a " +
+                                       "recently cached profile");
+        useProfileCache.setRequired(false);
+        useProfileCache.setDisplayOrder(3);
+        configProperties.add(useProfileCache);
+
+        Property authzUrl = new Property();
+        authzUrl.setDisplayName("Authorization Endpoint URL");
+        authzUrl.setName(LinkedInAuthenticatorConstants.OAUTH2_AUTHZ_URL);
+        authzUrl.setDescription("Enter value to override the LinkedIn authorization endpoint URL");
+        authzUrl.setRequired(false);
+        authzUrl.setDisplayOrder(4);
+        configProperties.add(authzUrl);
+
+        Property tokenUrl = new Property();
+        tokenUrl.setDisplayName("Token Endpoint URL");
+        tokenUrl.setName(LinkedInAuthenticatorConstants.OAUTH2_TOKEN_URL);
+        tokenUrl.setDescription("Enter value to override the LinkedIn token endpoint URL");
+        tokenUrl.setRequired(false);
+        tokenUrl.setDisplayOrder(5);
+        configProperties.add(tokenUrl);
+
+        Property userInfoUrl = new Property();
+        userInfoUrl.setDisplayName("User Info Endpoint URL");
+        userInfoUrl.setName(LinkedInAuthenticatorConstants.USER_INFO_URL);
+        userInfoUrl.setDescription("Enter value to override the LinkedIn user info endpoint URL, including its " +
+                                   "query string");
+        userInfoUrl.setRequired(false);
+        userInfoUrl.setDisplayOrder(6);
+        configProperties.add(userInfoUrl);
+
+        Property userInfoFields = new Property();
+        userInfoFields.setDisplayName("User Info Fields");
+        userInfoFields.setName(LinkedInAuthenticatorConstants.USER_INFO_FIELDS);
+        userInfoFields.setDescription("Enter the comma separated profile fields to request, or auto to request " +
+                                      "the fields of the mapped claims. All the fields are requested when empty");
+        userInfoFields.setRequired(false);
+        userInfoFields.setDisplayOrder(7);
+        configProperties.add(userInfoFields);
+
+        Property maxConcurrentRequests = new Property();
+        maxConcurrentRequests.setDisplayName("Max Concurrent Requests");
+        maxConcurrentRequests.setName(LinkedInAuthenticatorConstants.MAX_CONCURRENT_REQUESTS);
+        maxConcurrentRequests.setDescription("Enter the maximum number of logins of this identity provider calling " +
+                                             "LinkedIn at the same time. Only the tenant limit applies when empty");
+        maxConcurrentRequests.setRequired(false);
+        maxConcurrentRequests.setDisplayOrder(8);
+        configProperties.add(maxConcurrentRequests);
+
+        Property maxQueuedRequests = new Property();
+        maxQueuedRequests.setDisplayName("Max Queued Requests");
+        maxQueuedRequests.setName(LinkedInAuthenticatorConstants.MAX_QUEUED_REQUESTS);
+        maxQueuedRequests.setDescription("Enter the maximum number of logins of this identity provider waiting to " +
+                                         "call LinkedIn before further logins are rejected");
+        maxQueuedRequests.setRequired(false);
+        maxQueuedRequests.setDisplayOrder(9);
+        configProperties.add(maxQueuedRequests);
+
+        Property apiVersion = new Property();
+        apiVersion.setDisplayName("API Version");
+        apiVersion.setName(LinkedInAuthenticatorConstants.API_VERSION);
+        apiVersion.setDescription("Enter v2 to use the LinkedIn v2 API, which fetches the profile and the email " +
+                                  "address at the same time. The v1 API is used when empty");
+        apiVersion.setRequired(false);
+        apiVersion.setDisplayOrder(10);
+        configProperties.add(apiVersion);
+
+        Property emailAddressUrl = new Property();
+        emailAddressUrl.setDisplayName("Email Address Endpoint URL");
+        emailAddressUrl.setName(LinkedInAuthenticatorConstants.EMAIL_ADDRESS_URL);
+        emailAddressUrl.setDescription("Enter value to override the LinkedIn v2 email address endpoint URL, " +
+                                       "including its query string");
+        emailAddressUrl.setRequired(false);
+        emailAddressUrl.setDisplayOrder(11);
+        configProperties.add(emailAddressUrl);
+
         return configProperties;
     }
 
@@ -196,40 +337,33 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
     protected void initiateAuthenticationRequest(HttpServletRequest request, HttpServletResponse response,
                                                  AuthenticationContext context)
             throws AuthenticationFailedException {
+        long startTime = System.nanoTime();
+        LoginFlow flow = startFlow(context);
+        Throwable failure = null;
         try {
-            Map<String, String> authenticatorProperties = context.getAuthenticatorProperties();
-            if (authenticatorProperties != null) {
-                String clientId = authenticatorProperties.get(OIDCAuthenticatorConstants.CLIENT_ID);
-                String authorizationEP = getAuthorizationServerEndpoint(authenticatorProperties);
-                if (authorizationEP == null) {
-                    authorizationEP = authenticatorProperties.get(LinkedInAuthenticatorConstants.OAUTH2_AUTHZ_URL);
-                }
-                String callbackurl = getCallbackUrl(authenticatorProperties);
-                String state = context.getContextIdentifier() + "," + LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE;
-                state = getState(state, authenticatorProperties);
-                OAuthClientRequest authzRequest;
-                String queryString = LinkedInAuthenticatorConstants.QUERY_STRING;
-                authzRequest = OAuthClientRequest
-                        .authorizationLocation(authorizationEP)
-                        .setClientId(clientId)
-                        .setRedirectURI(callbackurl)
-                        .setResponseType(LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE)
-                        .setState(state).buildQueryMessage();
-                String loginPage = authzRequest.getLocationUri();
-                if (!queryString.startsWith("&")) {
-                    loginPage = loginPage + "&" + queryString;
-                } else {
-                    loginPage = loginPage + queryString;
-                }
-                response.sendRedirect(loginPage);
-            } else {
-                throw new AuthenticationFailedException("Authenticator Properties obtained from the " +
-                                                        "AuthenticationContext is null");
+            LinkedInIdpConfig idpConfig = getIdpConfig(context);
+            StateSigner stateSigner = LinkedInAuthenticatorDataHolder.getInstance().getStateSigner();
+            if (stateSigner == null) {
+                throw new AuthenticationFailedException("No " + LinkedInAuthenticatorConstants.STATE_SIGNING_KEY +
+                                                        " is configured for the LinkedIn authenticator");
             }
+            String state = context.getContextIdentifier() + "," + LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE;
+            state = stateSigner.sign(getState(state, context.getAuthenticatorProperties()));
+            // everything but the state is encoded once per identity provider configuration
+            String loginPage = idpConfig.getAuthorizationUrl(state);
+            response.sendRedirect(loginPage);
+        } catch (UnsupportedEncodingException e) {
+            failure = e;
+            throw new AuthenticationFailedException("Exception while building the request", e);
         } catch (IOException e) {
+            failure = e;
             throw new AuthenticationFailedException("Exception while sending the redirect response to the client", e);
-        } catch (OAuthSystemException e) {
-            throw new AuthenticationFailedException("Exception while building the request", e);
+        } catch (AuthenticationFailedException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            flow.recordLatency(LinkedInMetrics.Phase.REDIRECT, System.nanoTime() - startTime);
+            flow.complete(failure);
         }
     }
 
@@ -253,51 +387,279 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
     protected void processAuthenticationResponse(HttpServletRequest request, HttpServletResponse response,
                                                  AuthenticationContext context)
             throws AuthenticationFailedException {
+        LoginFlow flow = startFlow(context);
         try {
-            Map<String, String> authenticatorProperties = context.getAuthenticatorProperties();
-            String clientId = authenticatorProperties.get(OIDCAuthenticatorConstants.CLIENT_ID);
-            String clientSecret = authenticatorProperties.get(OIDCAuthenticatorConstants.CLIENT_SECRET);
-            String tokenEndPoint = getTokenEndpoint(authenticatorProperties);
-            if (tokenEndPoint == null) {
-                tokenEndPoint = authenticatorProperties.get(LinkedInAuthenticatorConstants.OAUTH2_TOKEN_URL);
-            }
-            String callbackurl = getCallbackUrl(authenticatorProperties);
+            LinkedInIdpConfig idpConfig = getIdpConfig(context);
             OAuthAuthzResponse authzResponse = OAuthAuthzResponse.oauthCodeAuthzResponse(request);
-            String code = authzResponse.getCode();
-            OAuthClientRequest accessRequest;
+            Map<ClaimMapping, String> claims = getClaims(authzResponse.getCode(), context, idpConfig, flow);
+            long startTime = System.nanoTime();
+            //Find the subject from the IDP claim mapping, subject Claim URI.
+            String subjectFromClaims = FrameworkUtils
+                    .getFederatedSubjectFromClaims(context.getExternalIdP().getIdentityProvider(), claims);
+            associateSubjectFromClaims(context, subjectFromClaims, claims);
+            flow.recordLatency(LinkedInMetrics.Phase.SUBJECT_ASSOCIATION, System.nanoTime() - startTime);
+            flow.recordSuccess();
+        } catch (OAuthProblemException e) {
+            flow.recordFailure(e);
+            throw new AuthenticationFailedException("Exception while getting the access token form the response", e);
+        } catch (AuthenticationFailedException | RuntimeException e) {
+            flow.recordFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the compiled configuration of the identity provider of the authentication context. It is compiled on the
+     * first login of the identity provider and again once the identity provider is updated.
+     *
+     * @param context the authentication context
+     * @return the identity provider configuration
+     * @throws AuthenticationFailedException if the identity provider is not configured correctly
+     */
+    protected LinkedInIdpConfig getIdpConfig(AuthenticationContext context) throws AuthenticationFailedException {
+        Map<String, String> authenticatorProperties = context.getAuthenticatorProperties();
+        if (authenticatorProperties == null) {
+            throw new AuthenticationFailedException("Authenticator Properties obtained from the " +
+                                                    "AuthenticationContext is null");
+        }
+        ClaimConfig claimConfig = getClaimConfig(context);
+        String tenantDomain = context.getTenantDomain();
+        String idpName = context.getExternalIdP() != null ? context.getExternalIdP().getIdPName() : null;
+        if (tenantDomain == null || idpName == null) {
+            return compileIdpConfig(tenantDomain, idpName, authenticatorProperties, claimConfig);
+        }
+        LinkedInIdpConfig idpConfig = idpConfigCache.get(tenantDomain, idpName);
+        if (idpConfig == null || !idpConfig.isCompiledFrom(authenticatorProperties, claimConfig)) {
+            idpConfig = compileIdpConfig(tenantDomain, idpName, authenticatorProperties, claimConfig);
+            idpConfigCache.put(tenantDomain, idpName, idpConfig);
+        }
+        return idpConfig;
+    }
+
+    /**
+     * Compile and validate the configuration of an identity provider.
+     *
+     * @param tenantDomain            the tenant domain, may be null
+     * @param idpName                 the identity provider name, may be null
+     * @param authenticatorProperties the authenticator properties
+     * @param claimConfig             the claim configuration, may be null
+     * @return the identity provider configuration
+     * @throws AuthenticationFailedException if a required property is missing
+     */
+    private LinkedInIdpConfig compileIdpConfig(String tenantDomain, String idpName,
+                                               Map<String, String> authenticatorProperties, ClaimConfig claimConfig)
+            throws AuthenticationFailedException {
+        String clientId = authenticatorProperties.get(OIDCAuthenticatorConstants.CLIENT_ID);
+        String clientSecret = authenticatorProperties.get(OIDCAuthenticatorConstants.CLIENT_SECRET);
+        String callbackUrl = getCallbackUrl(authenticatorProperties);
+        if (StringUtils.isBlank(clientId) || StringUtils.isBlank(clientSecret) || StringUtils.isBlank(callbackUrl)) {
+            throw new AuthenticationFailedException("Client Id, Client Secret and Callback URL must be configured " +
+                                                    "for the LinkedIn identity provider");
+        }
+        String userInfoFields = authenticatorProperties.get(LinkedInAuthenticatorConstants.USER_INFO_FIELDS);
+        // the v2 profile has no field selector to narrow, so its identity providers never derive fields
+        if (isApiV2(authenticatorProperties) && StringUtils.isNotBlank(userInfoFields)) {
+            log.warn("User Info Fields only applies to the v1 API. Ignoring it for the LinkedIn identity provider " +
+                     idpName + " of tenant " + tenantDomain);
+            userInfoFields = null;
+        }
+        String userInfoUrl = userInfoProjection.getUserInfoUrl(getUserInfoEndpoint(null, authenticatorProperties),
+                                                               userInfoFields, claimConfig);
+        String emailAddressUrl = getEmailAddressEndpoint(authenticatorProperties);
+        try {
+            AuthorizationUrlTemplate authorizationUrlTemplate = new AuthorizationUrlTemplate(
+                    getAuthorizationServerEndpoint(authenticatorProperties), clientId, callbackUrl,
+                    LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE,
+                    isApiV2(authenticatorProperties) ? LinkedInAuthenticatorConstants.V2_QUERY_STRING :
+                    LinkedInAuthenticatorConstants.QUERY_STRING);
+            return new LinkedInIdpConfig(authenticatorProperties, claimConfig, clientId, clientSecret,
+                    callbackUrl, getTokenEndpoint(authenticatorProperties), userInfoUrl, emailAddressUrl,
+                    LinkedInAuthenticatorUtils.getBooleanParameter(authenticatorProperties,
+                            LinkedInAuthenticatorConstants.USE_PROFILE_CACHE, true),
+                    ProfileKey.scope(tenantDomain, idpName, userInfoUrl, emailAddressUrl),
+                    UserInfoProjection.AUTO.equalsIgnoreCase(StringUtils.trim(userInfoFields)),
+                    LinkedInAuthenticatorUtils.getIntParameter(authenticatorProperties,
+                            LinkedInAuthenticatorConstants.MAX_CONCURRENT_REQUESTS, 0),
+                    LinkedInAuthenticatorUtils.getIntParameter(authenticatorProperties,
+                            LinkedInAuthenticatorConstants.MAX_QUEUED_REQUESTS,
+                            LinkedInAuthenticatorConstants.DEFAULT_MAX_QUEUED_REQUESTS),
+                    authorizationUrlTemplate);
+        } catch (UnsupportedEncodingException e) {
+            throw new AuthenticationFailedException("Exception while building the authorization request URL", e);
+        }
+    }
+
+    /**
+     * Get the claim configuration of the identity provider of the authentication context.
+     *
+     * @param context the authentication context
+     * @return the claim configuration, or null if there is none
+     */
+    private ClaimConfig getClaimConfig(AuthenticationContext context) {
+        ExternalIdPConfig externalIdPConfig = context.getExternalIdP();
+        if (externalIdPConfig == null || externalIdPConfig.getIdentityProvider() == null) {
+            return null;
+        }
+        return externalIdPConfig.getIdentityProvider().getClaimConfig();
+    }
+
+    /**
+     * Start the measurements of a login request, which are added to the metrics of the identity provider of the
+     * authentication context.
+     *
+     * @param context the authentication context
+     * @return the login flow
+     */
+    private LoginFlow startFlow(AuthenticationContext context) {
+        LinkedInMetricsRegistry metricsRegistry = LinkedInAuthenticatorDataHolder.getInstance().getMetricsRegistry();
+        if (metricsRegistry == null) {
+            return LoginFlow.start(UNREGISTERED_METRICS, null);
+        }
+        String idpName = context.getExternalIdP() != null ? context.getExternalIdP().getIdPName() : null;
+        return LoginFlow.start(metricsRegistry.getMetrics(context.getTenantDomain(), idpName),
+                               metricsRegistry.getFlowRecorder());
+    }
+
+    /**
+     * Get the user claims for the authorization code. A replayed callback which arrives while the first one is still
+     * calling LinkedIn waits for it and shares its claims, instead of redeeming the code a second time.
+     *
+     * @param code      the authorization code
+     * @param context   the authentication context
+     * @param idpConfig the identity provider configuration
+     * @param flow      the measurements of the login
+     * @return claims
+     * @throws AuthenticationFailedException
+     */
+    private Map<ClaimMapping, String> getClaims(final String code, final AuthenticationContext context,
+                                                final LinkedInIdpConfig idpConfig, final LoginFlow flow)
+            throws AuthenticationFailedException {
+        final boolean[] called = new boolean[1];
+        String key = code + "," + context.getContextIdentifier();
+        try {
+            return claimRequests.execute(key, new Callable<Map<ClaimMapping, String>>() {
+                @Override
+                public Map<ClaimMapping, String> call() throws AuthenticationFailedException {
+                    called[0] = true;
+                    return fetchClaims(code, context, idpConfig, flow);
+                }
+            });
+        } finally {
+            if (!called[0]) {
+                flow.recordCoalesced();
+            }
+        }
+    }
+
+    /**
+     * Fetch the user claims for the authorization code within the concurrency limits of the tenant and the identity
+     * provider. When the callback executor is enabled the LinkedIn calls run on its bounded worker pool and the
+     * calling thread is blocked until they complete, but no longer than the configured deadline. The permits are
+     * then taken and released by the worker, so a callback which gives up waiting keeps holding them until its
+     * LinkedIn calls have actually stopped.
+     *
+     * @param code      the authorization code
+     * @param context   the authentication context
+     * @param idpConfig the identity provider configuration
+     * @param flow      the measurements of the login
+     * @return claims
+     * @throws AuthenticationFailedException
+     */
+    private Map<ClaimMapping, String> fetchClaims(final String code, AuthenticationContext context,
+                                                  final LinkedInIdpConfig idpConfig, final LoginFlow flow)
+            throws AuthenticationFailedException {
+        LinkedInAuthenticatorDataHolder dataHolder = LinkedInAuthenticatorDataHolder.getInstance();
+        final LinkedInBulkheads bulkheads = dataHolder.getBulkheads();
+        final String tenantDomain = context.getTenantDomain();
+        final String idpName = context.getExternalIdP() != null ? context.getExternalIdP().getIdPName() : null;
+        LinkedInCallbackExecutor callbackExecutor = dataHolder.getCallbackExecutor();
+        if (callbackExecutor == null) {
+            return requestClaims(code, bulkheads, tenantDomain, idpName, idpConfig, flow);
+        }
+        return callbackExecutor.execute(new Callable<Map<ClaimMapping, String>>() {
+            @Override
+            public Map<ClaimMapping, String> call() throws AuthenticationFailedException {
+                return requestClaims(code, bulkheads, tenantDomain, idpName, idpConfig, flow);
+            }
+        });
+    }
+
+    /**
+     * Exchange the authorization code for an access token and fetch the user claims with it, holding the permits of
+     * the tenant and the identity provider for the duration of the LinkedIn calls.
+     *
+     * @param code         the authorization code
+     * @param bulkheads    the bulkheads, or null when the callbacks are not limited
+     * @param tenantDomain the tenant domain
+     * @param idpName      the identity provider name
+     * @param idpConfig    the identity provider configuration
+     * @param flow         the measurements of the login
+     * @return claims
+     * @throws AuthenticationFailedException
+     */
+    private Map<ClaimMapping, String> requestClaims(String code, LinkedInBulkheads bulkheads, String tenantDomain,
+                                                    String idpName, LinkedInIdpConfig idpConfig, LoginFlow flow)
+            throws AuthenticationFailedException {
+        if (bulkheads == null) {
+            return requestClaims(code, idpConfig, flow);
+        }
+        LinkedInBulkheads.Permit permit;
+        try {
+            permit = bulkheads.acquire(tenantDomain, idpName, idpConfig.getMaxConcurrentRequests(),
+                                       idpConfig.getMaxQueuedRequests());
+        } catch (BulkheadFullException e) {
+            flow.recordRejected();
+            throw e;
+        }
+        try {
+            return requestClaims(code, idpConfig, flow);
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Exchange the authorization code for an access token and fetch the user claims with it.
+     *
+     * @param code      the authorization code
+     * @param idpConfig the identity provider configuration
+     * @param flow      the measurements of the login
+     * @return claims
+     * @throws AuthenticationFailedException
+     */
+    private Map<ClaimMapping, String> requestClaims(String code, LinkedInIdpConfig idpConfig, LoginFlow flow)
+            throws AuthenticationFailedException {
+        try {
+            OAuthClientRequest accessRequest = OAuthClientRequest.tokenLocation(idpConfig.getTokenEndpoint())
+                    .setGrantType(GrantType.AUTHORIZATION_CODE)
+                    .setClientId(idpConfig.getClientId()).setClientSecret(idpConfig.getClientSecret())
+                    .setRedirectURI(idpConfig.getCallbackUrl()).setCode(code)
+                    .buildBodyMessage();
+            // the OAuth client sends the request over the pooled keep-alive connections
+            OAuthClient oAuthClient = getHttpTransport().getOAuthClient();
+            long startTime = System.nanoTime();
+            OAuthClientResponse oAuthResponse;
             try {
-                accessRequest = OAuthClientRequest.tokenLocation(tokenEndPoint)
-                        .setGrantType(GrantType.AUTHORIZATION_CODE)
-                        .setClientId(clientId).setClientSecret(clientSecret)
-                        .setRedirectURI(callbackurl).setCode(code)
-                        .buildBodyMessage();
-                // create OAuth client that uses custom http client under the hood
-                OAuthClient oAuthClient = new OAuthClient(new URLConnectionClient());
-                OAuthClientResponse oAuthResponse;
                 oAuthResponse = oAuthClient.accessToken(accessRequest);
-                String accessToken = oAuthResponse.getParam(LinkedInAuthenticatorConstants.ACCESS_TOKEN);
-                if (StringUtils.isNotEmpty(accessToken)) {
-                        Map<ClaimMapping, String> claims = buildClaims(oAuthResponse, authenticatorProperties);
-                        if (claims != null && !claims.isEmpty()) {
-                            //Find the subject from the IDP claim mapping, subject Claim URI.
-                            String subjectFromClaims = FrameworkUtils
-                                    .getFederatedSubjectFromClaims(context.getExternalIdP().getIdentityProvider(),
-                                                                   claims);
-                            associateSubjectFromClaims(context, subjectFromClaims, claims);
-                        } else {
-                            throw new AuthenticationFailedException("Claims for the user not found for access Token : "
-                                                                    + accessToken);
-                        }
-                    } else {
-                        throw new AuthenticationFailedException("Could not receive a valid access token from LinkedIn");
-                    }
-            } catch (OAuthSystemException e) {
-                throw new AuthenticationFailedException("Exception while building access token request", e);
-            } catch (ApplicationAuthenticatorException e) {
-                throw new AuthenticationFailedException("Exception while building the claim mapping", e);
+            } finally {
+                flow.recordLatency(LinkedInMetrics.Phase.TOKEN_EXCHANGE, System.nanoTime() - startTime);
+            }
+            String accessToken = oAuthResponse.getParam(LinkedInAuthenticatorConstants.ACCESS_TOKEN);
+            if (StringUtils.isEmpty(accessToken)) {
+                throw new AuthenticationFailedException("Could not receive a valid access token from LinkedIn");
+            }
+            Map<ClaimMapping, String> claims = buildClaims(oAuthResponse, idpConfig, flow);
+            if (claims == null || claims.isEmpty()) {
+                throw new AuthenticationFailedException("Claims for the user not found for access Token : "
+                                                        + accessToken);
             }
+            return claims;
+        } catch (OAuthSystemException e) {
+            throw new AuthenticationFailedException("Exception while building access token request", e);
         } catch (OAuthProblemException e) {
             throw new AuthenticationFailedException("Exception while getting the access token form the response", e);
+        } catch (ApplicationAuthenticatorException e) {
+            throw new AuthenticationFailedException("Exception while building the claim mapping", e);
         }
     }
 
@@ -311,101 +673,102 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
     }
 
     /**
-     * This method is to get the LinkedIn user details.
+     * Get the pooled http transport registered by the LinkedIn authenticator component.
      *
-     * @param url         user info endpoint.
-     * @param accessToken access token.
-     * @return user info
-     * @throws ApplicationAuthenticatorException
+     * @return the http transport
+     * @throws ApplicationAuthenticatorException if the component is not active
      */
-    private JSONObject fetchUserInfo(String url, String accessToken) throws ApplicationAuthenticatorException {
-        if (log.isDebugEnabled()) {
-            log.debug("Sending the request for getting the user info");
-        }
-        StringBuilder jsonResponseCollector = new StringBuilder();
-        BufferedReader bufferedReader = null;
-        HttpURLConnection httpConnection = null;
-        JSONObject jsonObj = null;
-        try {
-            URL obj = new URL(url + "&" + LinkedInAuthenticatorConstants.LINKEDIN_OAUTH2_ACCESS_TOKEN_PARAMETER + "="
-                              + accessToken);
-            URLConnection connection = obj.openConnection();
-            // Cast to a HttpURLConnection
-            if (connection instanceof HttpURLConnection) {
-                httpConnection = (HttpURLConnection) connection;
-                httpConnection.setConnectTimeout(LinkedInAuthenticatorConstants.CONNECTION_TIMEOUT_VALUE);
-                httpConnection.setReadTimeout(LinkedInAuthenticatorConstants.READ_TIMEOUT_VALUE);
-                httpConnection.setRequestMethod(LinkedInAuthenticatorConstants.HTTP_GET_METHOD);
-                bufferedReader = new BufferedReader(new InputStreamReader(httpConnection.getInputStream()));
-            } else {
-                throw new ApplicationAuthenticatorException("Exception while casting the HttpURLConnection");
-            }
-            String inputLine = bufferedReader.readLine();
-            while (inputLine != null) {
-                jsonResponseCollector.append(inputLine).append("\n");
-                inputLine = bufferedReader.readLine();
-            }
-            jsonObj = new JSONObject(jsonResponseCollector.toString());
-        } catch (MalformedURLException e) {
-            throw new ApplicationAuthenticatorException("MalformedURLException while generating the user info URL: "
-                                                        + url, e);
-        } catch (ProtocolException e) {
-            throw new ApplicationAuthenticatorException("ProtocolException while setting the request method: " +
-                                                        LinkedInAuthenticatorConstants.HTTP_GET_METHOD +
-                                                        " for the URL: " + url, e);
-        } catch (IOException e) {
-            throw new ApplicationAuthenticatorException("Error when reading the response from " + url +
-                                                        "to update user claims", e);
-        } finally {
-            IdentityIOStreamUtils.closeReader(bufferedReader);
-            if (httpConnection != null) {
-                httpConnection.disconnect();
-            }
-        }
-        if (log.isDebugEnabled()) {
-            log.debug("Receiving the response for the User info: " + jsonResponseCollector.toString());
+    private LinkedInHttpTransport getHttpTransport() throws ApplicationAuthenticatorException {
+        LinkedInHttpTransport httpTransport = LinkedInAuthenticatorDataHolder.getInstance().getHttpTransport();
+        if (httpTransport == null) {
+            throw new ApplicationAuthenticatorException("LinkedIn http transport is not available");
         }
-        return jsonObj;
+        return httpTransport;
     }
 
     /**
      * This method is to build the claims for the user info.
      *
-     * @param token                   token
-     * @param authenticatorProperties authenticatorProperties
+     * @param token     token
+     * @param idpConfig the identity provider configuration
+     * @param flow      the measurements of the login
      * @return claims
      */
-    private Map<ClaimMapping, String> buildClaims(OAuthClientResponse token,
-                                                  Map<String, String> authenticatorProperties)
+    protected Map<ClaimMapping, String> buildClaims(OAuthClientResponse token, LinkedInIdpConfig idpConfig,
+                                                    LoginFlow flow)
             throws ApplicationAuthenticatorException {
-        Map<ClaimMapping, String> claims = new HashMap<>();
-        String accessToken = token.getParam("access_token");
-        String url = getUserInfoEndpoint(token, authenticatorProperties);
-        JSONObject userData;
+        long startTime = System.nanoTime();
+        long userInfoTime = 0;
         try {
-            userData = fetchUserInfo(url, accessToken);
-            if (userData.length() == 0) {
+            String accessToken = token.getParam("access_token");
+            String url = idpConfig.getUserInfoUrl();
+            String emailAddressUrl = idpConfig.getEmailAddressUrl();
+            LinkedInProfileCache profileCache = getProfileCache(idpConfig);
+            String tokenHash = null;
+            if (profileCache != null) {
+                // only a token LinkedIn has handed out before can hit, the member id is not known until the profile
+                // is fetched
+                tokenHash = LinkedInProfileCache.hashToken(accessToken);
+                Map<ClaimMapping, String> cachedClaims =
+                        profileCache.getByTokenHash(idpConfig.getProfileCacheScope(), tokenHash);
+                if (cachedClaims != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Using the cached LinkedIn profile claims");
+                    }
+                    flow.recordProfileCached();
+                    return cachedClaims;
+                }
+            }
+            CompactClaimMap userClaims;
+            long userInfoStartTime = System.nanoTime();
+            try {
+                LinkedInUserInfoClient userInfoClient = getHttpTransport().getUserInfoClient();
+                // the slower of the v2 profile and email address requests, which run at the same time, sets the
+                // user info latency
+                userClaims = emailAddressUrl == null ? userInfoClient.fetchClaims(url, accessToken, flow) :
+                             userInfoClient.fetchClaimsV2(url, emailAddressUrl, accessToken, flow);
+            } catch (ApplicationAuthenticatorException e) {
+                throw new ApplicationAuthenticatorException("Exception while fetching the user info from " + url, e);
+            } finally {
+                userInfoTime = System.nanoTime() - userInfoStartTime;
+                flow.recordLatency(LinkedInMetrics.Phase.USER_INFO, userInfoTime);
+            }
+            if (userClaims.isEmpty()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Unable to fetch user claims. Proceeding without user claims");
                 }
-                return claims;
+                return userClaims;
             }
-            Iterator<?> keys = userData.keys();
-            while( keys.hasNext() ){
-                String key = (String)keys.next();
-                String value = userData.getString(key);
-                String claimUri = LinkedInAuthenticatorConstants.CLAIM_DIALECT_URI + "/" + key;
-                ClaimMapping claimMapping = new ClaimMapping();
-                Claim claim = new Claim();
-                claim.setClaimUri(claimUri);
-                claimMapping.setRemoteClaim(claim);
-                claimMapping.setLocalClaim(claim);
-                claims.put(claimMapping, value);
+            String memberId = userClaims.get(ClaimMappingRegistry.LINKEDIN
+                                                     .getClaimMapping(LinkedInAuthenticatorConstants.USER_ID));
+            if (profileCache != null && StringUtils.isNotEmpty(memberId)) {
+                ProfileKey profileKey = new ProfileKey(idpConfig.getProfileCacheScope(), memberId);
+                profileCache.put(profileKey, tokenHash, userClaims);
+                ProfileRefresher profileRefresher = LinkedInAuthenticatorDataHolder.getInstance().getProfileRefresher();
+                if (profileRefresher != null) {
+                    profileRefresher.storeToken(profileKey, accessToken,
+                                                token.getParam(LinkedInAuthenticatorConstants.EXPIRES_IN), url,
+                                                emailAddressUrl);
+                }
             }
-        } catch (ApplicationAuthenticatorException e) {
-            throw new ApplicationAuthenticatorException("Exception while fetching the user info from " + url, e);
+            return userClaims;
+        } finally {
+            // Only our own overhead is recorded for this phase, the user info call has its own histogram.
+            flow.recordLatency(LinkedInMetrics.Phase.BUILD_CLAIMS, System.nanoTime() - startTime - userInfoTime);
+        }
+    }
+
+    /**
+     * Get the profile cache if it is enabled and the identity provider has not turned it off.
+     *
+     * @param idpConfig the identity provider configuration
+     * @return the profile cache, or null if the profile must be fetched
+     */
+    private LinkedInProfileCache getProfileCache(LinkedInIdpConfig idpConfig) {
+        if (!idpConfig.isUseProfileCache()) {
+            return null;
         }
-        return claims;
+        return LinkedInAuthenticatorDataHolder.getInstance().getProfileCache();
     }
 
     /**
@@ -419,14 +782,8 @@ public class LinkedInAuthenticator extends OpenIDConnectAuthenticator implements
                                             Map<ClaimMapping, String> claims) {
         //Use default claim URI on the Authenticator if claim mapping is not defined by the admin
         if (StringUtils.isBlank(subjectFromClaims)) {
-            String userId =
-                    LinkedInAuthenticatorConstants.CLAIM_DIALECT_URI + "/" + LinkedInAuthenticatorConstants.USER_ID;
-            ClaimMapping claimMapping = new ClaimMapping();
-            Claim claim = new Claim();
-            claim.setClaimUri(userId);
-            claimMapping.setRemoteClaim(claim);
-            claimMapping.setLocalClaim(claim);
-            subjectFromClaims = claims.get(claimMapping);
+            subjectFromClaims = claims.get(ClaimMappingRegistry.LINKEDIN
+                                                   .getClaimMapping(LinkedInAuthenticatorConstants.USER_ID));
         }
         AuthenticatedUser authenticatedUserObj =
                 AuthenticatedUser.createFederateAuthenticatedUserFromSubjectIdentifier(subjectFromClaims);
@@ -34,12 +34,23 @@ public class LinkedInAuthenticatorConstants {
     //LinkedIn user info endpoint URL.
     public static final String LINKEDIN_USERINFO_ENDPOINT =
             "https://api.linkedin.com/v1/people/~:(id,first-name,last-name,industry,headline,email-address)?format=json";
+    //LinkedIn v2 API authorize endpoint URL.
+    public static final String LINKEDIN_V2_OAUTH_ENDPOINT = "https://www.linkedin.com/oauth/v2/authorization";
+    //LinkedIn v2 API token endpoint URL.
+    public static final String LINKEDIN_V2_TOKEN_ENDPOINT = "https://www.linkedin.com/oauth/v2/accessToken";
+    //LinkedIn v2 API profile endpoint URL.
+    public static final String LINKEDIN_V2_PROFILE_ENDPOINT = "https://api.linkedin.com/v2/me";
+    //LinkedIn v2 API email address endpoint URL.
+    public static final String LINKEDIN_V2_EMAIL_ADDRESS_ENDPOINT =
+            "https://api.linkedin.com/v2/emailAddress?q=members&projection=(elements*(handle~))";
     //LinkedIn connector friendly name.
     public static final String LINKEDIN_CONNECTOR_FRIENDLY_NAME = "LinkedIn Authenticator";
     //LinkedIn connector name.
     public static final String LINKEDIN_CONNECTOR_NAME = "LinkedIn";
     //The query string.
     public static final String QUERY_STRING = "scope=r_basicprofile%20r_emailaddress";
+    //The query string of the v2 API.
+    public static final String V2_QUERY_STRING = "scope=r_liteprofile%20r_emailaddress";
     //The oauth2 access token
     public static final String LINKEDIN_OAUTH2_ACCESS_TOKEN_PARAMETER = "oauth2_access_token";
     //The log in type.
@@ -58,10 +69,40 @@ public class LinkedInAuthenticatorConstants {
     public static final String OAUTH2_AUTHZ_URL = "OAuth2AuthzUrl";
     //The oauth2 token URL.
     public static final String OAUTH2_TOKEN_URL = "OAUTH2TokenUrl";
+    //The user info URL.
+    public static final String USER_INFO_URL = "UserInfoUrl";
+    //IdP property for the email address URL of the v2 API.
+    public static final String EMAIL_ADDRESS_URL = "EmailAddressUrl";
+    //IdP property for the LinkedIn API version, v1 or v2.
+    public static final String API_VERSION = "ApiVersion";
+    //The v2 API version.
+    public static final String API_VERSION_V2 = "v2";
+    //IdP property for the LinkedIn profile fields requested from the user info endpoint.
+    public static final String USER_INFO_FIELDS = "UserInfoFields";
     //The reply URL of the application.
     public static final String CALLBACK_URL = "callbackUrl";
     //The ID of the user.
     public static final String USER_ID = "id";
+    //The first name of the user.
+    public static final String FIRST_NAME = "firstName";
+    //The last name of the user.
+    public static final String LAST_NAME = "lastName";
+    //The industry of the user.
+    public static final String INDUSTRY = "industry";
+    //The headline of the user.
+    public static final String HEADLINE = "headline";
+    //The email address of the user.
+    public static final String EMAIL_ADDRESS = "emailAddress";
+    //The localized first name of the user in the v2 API.
+    public static final String LOCALIZED_FIRST_NAME = "localizedFirstName";
+    //The localized last name of the user in the v2 API.
+    public static final String LOCALIZED_LAST_NAME = "localizedLastName";
+    //The localized headline of the user in the v2 API.
+    public static final String LOCALIZED_HEADLINE = "localizedHeadline";
+    //The elements of the v2 API email address response.
+    public static final String ELEMENTS = "elements";
+    //The email address handle of an element of the v2 API email address response.
+    public static final String EMAIL_ADDRESS_HANDLE = "handle~";
     //The claim dialect URI.
     public static final String CLAIM_DIALECT_URI = "http://wso2.org/linkedin/claims";
     //The Http get method.
@@ -70,4 +111,202 @@ public class LinkedInAuthenticatorConstants {
     public static final int CONNECTION_TIMEOUT_VALUE = 15000;
     //Constant for read time out.
     public static final int READ_TIMEOUT_VALUE = 15000;
+    //The Http Accept header value for the LinkedIn endpoints.
+    public static final String HTTP_ACCEPT_JSON = "application/json";
+
+    //Authenticator parameter for the maximum number of pooled connections.
+    public static final String HTTP_MAX_TOTAL_CONNECTIONS = "HttpMaxTotalConnections";
+    //Authenticator parameter for the maximum number of pooled connections per route.
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "HttpMaxConnectionsPerRoute";
+    //Authenticator parameter for the time a pooled connection may stay idle before it is evicted.
+    public static final String HTTP_IDLE_CONNECTION_TIMEOUT = "HttpIdleConnectionTimeout";
+    //Authenticator parameter for the interval of the idle connection eviction run.
+    public static final String HTTP_EVICTION_INTERVAL = "HttpConnectionEvictionInterval";
+    //Authenticator parameter for the time to wait for a connection from the pool.
+    public static final String HTTP_CONNECTION_REQUEST_TIMEOUT = "HttpConnectionRequestTimeout";
+    //Authenticator parameter for the maximum size in bytes of a LinkedIn response.
+    public static final String HTTP_MAX_RESPONSE_SIZE = "HttpMaxResponseSize";
+    //Authenticator parameter which enables gzip and deflate compressed LinkedIn responses.
+    public static final String HTTP_COMPRESSION_ENABLED = "HttpCompressionEnabled";
+    //Authenticator parameter for the number of pooled response decoding buffers.
+    public static final String HTTP_BUFFER_POOL_SIZE = "HttpBufferPoolSize";
+    //Default maximum number of pooled connections.
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+    //Default maximum number of pooled connections per route.
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+    //Default idle time of a pooled connection in milliseconds.
+    public static final int DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
+    //Default idle connection eviction interval in milliseconds.
+    public static final int DEFAULT_EVICTION_INTERVAL = 5000;
+    //Default time to wait for a pooled connection in milliseconds.
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 5000;
+    //Default maximum size in bytes of a LinkedIn response.
+    public static final int DEFAULT_MAX_RESPONSE_SIZE = 65536;
+    //Default number of pooled response decoding buffers.
+    public static final int DEFAULT_BUFFER_POOL_SIZE = 64;
+    //Authenticator parameter for the connect timeout in milliseconds, the upper bound of the adaptive timeout.
+    public static final String HTTP_CONNECTION_TIMEOUT = "HttpConnectionTimeout";
+    //Authenticator parameter for the read timeout in milliseconds, the upper bound of the adaptive timeout.
+    public static final String HTTP_READ_TIMEOUT = "HttpReadTimeout";
+
+    //Authenticator parameter which enables the timeouts adapting to the observed LinkedIn latency, off by default.
+    public static final String ADAPTIVE_TIMEOUT_ENABLED = "AdaptiveTimeoutEnabled";
+    //Authenticator parameter for the lower bound in milliseconds of the adaptive timeout.
+    public static final String ADAPTIVE_TIMEOUT_MIN = "AdaptiveTimeoutMin";
+    //Authenticator parameter for the multiple of the p99 latency used as the adaptive timeout.
+    public static final String ADAPTIVE_TIMEOUT_MULTIPLIER = "AdaptiveTimeoutMultiplier";
+    //Default lower bound in milliseconds of the adaptive timeout.
+    public static final int DEFAULT_ADAPTIVE_TIMEOUT_MIN = 2000;
+    //Default multiple of the p99 latency used as the adaptive timeout.
+    public static final int DEFAULT_ADAPTIVE_TIMEOUT_MULTIPLIER = 3;
+
+    //Authenticator parameter which enables the circuit breaker of the LinkedIn endpoints.
+    public static final String CIRCUIT_BREAKER_ENABLED = "CircuitBreakerEnabled";
+    //Authenticator parameter for the percentage of failed calls which opens the circuit.
+    public static final String CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = "CircuitBreakerFailureRateThreshold";
+    //Authenticator parameter for the percentage of slow calls which opens the circuit.
+    public static final String CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD = "CircuitBreakerSlowCallRateThreshold";
+    //Authenticator parameter for the duration in milliseconds from which a call is slow.
+    public static final String CIRCUIT_BREAKER_SLOW_CALL_DURATION = "CircuitBreakerSlowCallDuration";
+    //Authenticator parameter for the number of recent calls the failure and slow call rates are computed over.
+    public static final String CIRCUIT_BREAKER_WINDOW_SIZE = "CircuitBreakerWindowSize";
+    //Authenticator parameter for the number of calls required before the circuit may open.
+    public static final String CIRCUIT_BREAKER_MINIMUM_CALLS = "CircuitBreakerMinimumCalls";
+    //Authenticator parameter for the time in milliseconds the circuit stays open before probing.
+    public static final String CIRCUIT_BREAKER_OPEN_DURATION = "CircuitBreakerOpenDuration";
+    //Authenticator parameter for the number of probe calls permitted while the circuit is half open.
+    public static final String CIRCUIT_BREAKER_HALF_OPEN_CALLS = "CircuitBreakerHalfOpenCalls";
+    //Default percentage of failed calls which opens the circuit.
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = 50;
+    //Default percentage of slow calls which opens the circuit.
+    public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD = 80;
+    //Default duration in milliseconds from which a call is slow.
+    public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION = 5000;
+    //Default number of recent calls the failure and slow call rates are computed over.
+    public static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 50;
+    //Default number of calls required before the circuit may open.
+    public static final int DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS = 20;
+    //Default time in milliseconds the circuit stays open before probing.
+    public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 30000;
+    //Default number of probe calls permitted while the circuit is half open.
+    public static final int DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_CALLS = 5;
+
+    //Authenticator parameter which enables hedged user info requests.
+    public static final String USER_INFO_HEDGING_ENABLED = "UserInfoHedgingEnabled";
+    //Authenticator parameter for the delay in milliseconds before a hedged user info request, 0 for the p95 latency.
+    public static final String USER_INFO_HEDGE_DELAY = "UserInfoHedgeDelay";
+    //Authenticator parameter for the lower bound in milliseconds of the hedge delay following the p95 latency.
+    public static final String USER_INFO_HEDGE_MIN_DELAY = "UserInfoHedgeMinDelay";
+    //Authenticator parameter for the maximum number of retries of a user info request after a transient failure.
+    public static final String USER_INFO_MAX_RETRIES = "UserInfoMaxRetries";
+    //Authenticator parameter for the base backoff in milliseconds before a user info request is retried.
+    public static final String USER_INFO_RETRY_BACKOFF = "UserInfoRetryBackoff";
+    //Authenticator parameter for the time in milliseconds within which the hedged and retried requests complete.
+    public static final String USER_INFO_DEADLINE = "UserInfoDeadline";
+    //Authenticator parameter for the number of threads sending the concurrent, hedged and retried user info requests.
+    public static final String USER_INFO_POOL_SIZE = "UserInfoPoolSize";
+    //Default lower bound in milliseconds of the hedge delay following the p95 latency.
+    public static final int DEFAULT_USER_INFO_HEDGE_MIN_DELAY = 50;
+    //Default base backoff in milliseconds before a user info request is retried.
+    public static final int DEFAULT_USER_INFO_RETRY_BACKOFF = 100;
+    //Default time in milliseconds within which the hedged and retried requests complete.
+    public static final int DEFAULT_USER_INFO_DEADLINE = 5000;
+    //Default number of threads sending the concurrent, hedged and retried user info requests.
+    public static final int DEFAULT_USER_INFO_POOL_SIZE = 50;
+
+    //Authenticator parameter for the execution mode of the LinkedIn calls of a callback.
+    public static final String CALLBACK_EXECUTION_MODE = "CallbackExecutionMode";
+    //Execution mode which runs the LinkedIn calls of a callback on the bounded callback executor. The request thread
+    //still waits for them, at most for the callback timeout.
+    public static final String CALLBACK_EXECUTION_MODE_ASYNC = "async";
+    //Authenticator parameter for the number of callback executor threads.
+    public static final String CALLBACK_EXECUTOR_POOL_SIZE = "CallbackExecutorPoolSize";
+    //Authenticator parameter for the number of callbacks waiting for a callback executor thread.
+    public static final String CALLBACK_EXECUTOR_QUEUE_SIZE = "CallbackExecutorQueueSize";
+    //Authenticator parameter for the time a callback waits for its LinkedIn calls to complete.
+    public static final String CALLBACK_TIMEOUT = "CallbackTimeout";
+    //Default number of callback executor threads.
+    public static final int DEFAULT_CALLBACK_EXECUTOR_POOL_SIZE = 50;
+    //Default number of callbacks waiting for a callback executor thread.
+    public static final int DEFAULT_CALLBACK_EXECUTOR_QUEUE_SIZE = 100;
+    //Default time in milliseconds a callback waits for its LinkedIn calls to complete.
+    public static final int DEFAULT_CALLBACK_TIMEOUT = 20000;
+
+    //Authenticator parameter which enables the LinkedIn profile cache.
+    public static final String PROFILE_CACHE_ENABLED = "ProfileCacheEnabled";
+    //Authenticator parameter for the maximum number of cached LinkedIn profiles.
+    public static final String PROFILE_CACHE_MAX_ENTRIES = "ProfileCacheMaxEntries";
+    //Authenticator parameter for the time in seconds a cached LinkedIn profile is used.
+    public static final String PROFILE_CACHE_TTL = "ProfileCacheTTL";
+    //Default maximum number of cached LinkedIn profiles.
+    public static final int DEFAULT_PROFILE_CACHE_MAX_ENTRIES = 10000;
+    //Default time in seconds a cached LinkedIn profile is used.
+    public static final int DEFAULT_PROFILE_CACHE_TTL = 300;
+    //IdP property which controls whether the IdP uses the LinkedIn profile cache.
+    public static final String USE_PROFILE_CACHE = "UseProfileCache";
+
+    //Authenticator parameter which enables the background refresh of cached LinkedIn profiles.
+    public static final String PROFILE_REFRESH_ENABLED = "ProfileRefreshEnabled";
+    //Authenticator parameter for the age in seconds from which a cached profile is refreshed.
+    public static final String PROFILE_REFRESH_AFTER = "ProfileRefreshAfter";
+    //Authenticator parameter for the interval in seconds of the profile refresh run.
+    public static final String PROFILE_REFRESH_INTERVAL = "ProfileRefreshInterval";
+    //Authenticator parameter for the maximum number of profiles refreshed in a run.
+    public static final String PROFILE_REFRESH_BATCH_SIZE = "ProfileRefreshBatchSize";
+    //Authenticator parameter for the maximum number of profiles refreshed per second.
+    public static final String PROFILE_REFRESH_RATE = "ProfileRefreshRate";
+    //Authenticator parameter for the number of profile refresh threads.
+    public static final String PROFILE_REFRESH_POOL_SIZE = "ProfileRefreshPoolSize";
+    //Authenticator parameter for the maximum number of stored LinkedIn access tokens.
+    public static final String TOKEN_STORE_MAX_ENTRIES = "TokenStoreMaxEntries";
+    //Default age in seconds from which a cached profile is refreshed.
+    public static final int DEFAULT_PROFILE_REFRESH_AFTER = 240;
+    //Default interval in seconds of the profile refresh run.
+    public static final int DEFAULT_PROFILE_REFRESH_INTERVAL = 30;
+    //Default maximum number of profiles refreshed in a run.
+    public static final int DEFAULT_PROFILE_REFRESH_BATCH_SIZE = 100;
+    //Default maximum number of profiles refreshed per second.
+    public static final int DEFAULT_PROFILE_REFRESH_RATE = 10;
+    //Default number of profile refresh threads.
+    public static final int DEFAULT_PROFILE_REFRESH_POOL_SIZE = 2;
+    //Default maximum number of stored LinkedIn access tokens.
+    public static final int DEFAULT_TOKEN_STORE_MAX_ENTRIES = 10000;
+    //The lifetime in seconds of the access token in the token response.
+    public static final String EXPIRES_IN = "expires_in";
+    //Authenticator parameter for the maximum number of concurrent LinkedIn callbacks of a tenant.
+    public static final String TENANT_MAX_CONCURRENT_REQUESTS = "TenantMaxConcurrentRequests";
+    //Authenticator parameter for the maximum number of LinkedIn callbacks of a tenant waiting for a permit.
+    public static final String TENANT_MAX_QUEUED_REQUESTS = "TenantMaxQueuedRequests";
+    //Authenticator parameter for the maximum time in milliseconds a LinkedIn callback waits for a permit.
+    public static final String BULKHEAD_MAX_WAIT = "BulkheadMaxWait";
+    //IdP property for the maximum number of concurrent LinkedIn callbacks of the IdP.
+    public static final String MAX_CONCURRENT_REQUESTS = "MaxConcurrentRequests";
+    //IdP property for the maximum number of LinkedIn callbacks of the IdP waiting for a permit.
+    public static final String MAX_QUEUED_REQUESTS = "MaxQueuedRequests";
+    //Default maximum number of concurrent LinkedIn callbacks of a tenant, 0 leaves the tenants unlimited.
+    public static final int DEFAULT_TENANT_MAX_CONCURRENT_REQUESTS = 0;
+    //Default maximum number of LinkedIn callbacks of a tenant waiting for a permit.
+    public static final int DEFAULT_TENANT_MAX_QUEUED_REQUESTS = 0;
+    //Default maximum time in milliseconds a LinkedIn callback waits for a permit.
+    public static final int DEFAULT_BULKHEAD_MAX_WAIT = 200;
+    //Default maximum number of LinkedIn callbacks of an IdP waiting for a permit.
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 10;
+    //Authenticator parameter for the key which signs the state parameter, shared by the nodes of a cluster.
+    public static final String STATE_SIGNING_KEY = "StateSigningKey";
+    //Authenticator parameter for the time in seconds a signed state is accepted.
+    public static final String STATE_VALIDITY = "StateValidity";
+    //Default time in seconds a signed state is accepted.
+    public static final int DEFAULT_STATE_VALIDITY = 900;
+    //Authenticator parameter which enables the recording of the login flow summaries at startup.
+    public static final String FLOW_RECORDER_ENABLED = "FlowRecorderEnabled";
+    //Authenticator parameter for the number of login flow summaries kept.
+    public static final String FLOW_RECORDER_SIZE = "FlowRecorderSize";
+    //Default number of login flow summaries kept.
+    public static final int DEFAULT_FLOW_RECORDER_SIZE = 200;
+    //Authenticator parameter which warms the LinkedIn connections and login path up after activation.
+    public static final String WARM_UP_ENABLED = "WarmUpEnabled";
+    //Authenticator parameter for the number of times the login path is run on sample data during the warm up.
+    public static final String WARM_UP_ITERATIONS = "WarmUpIterations";
+    //Default number of times the login path is run on sample data during the warm up.
+    public static final int DEFAULT_WARM_UP_ITERATIONS = 2000;
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.config.builder.FileBasedConfigurationBuilder;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Utility methods of the LinkedIn authenticator.
+ */
+public class LinkedInAuthenticatorUtils {
+
+    private static Log log = LogFactory.getLog(LinkedInAuthenticatorUtils.class);
+
+    private LinkedInAuthenticatorUtils() {
+    }
+
+    /**
+     * Get the parameters configured for the LinkedIn authenticator in application-authentication.xml.
+     *
+     * @return authenticator parameters, never null
+     */
+    public static Map<String, String> getAuthenticatorParameters() {
+        AuthenticatorConfig authenticatorConfig = FileBasedConfigurationBuilder.getInstance()
+                .getAuthenticatorBean(LinkedInAuthenticatorConstants.LINKEDIN_CONNECTOR_NAME);
+        if (authenticatorConfig == null || authenticatorConfig.getParameterMap() == null) {
+            return Collections.emptyMap();
+        }
+        return authenticatorConfig.getParameterMap();
+    }
+
+    /**
+     * Read an integer parameter.
+     *
+     * @param parameters   the parameters
+     * @param name         the parameter name
+     * @param defaultValue value used when the parameter is not set or invalid
+     * @return parameter value
+     */
+    public static int getIntParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters != null ? parameters.get(name) : null;
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value: " + value + " for the parameter: " + name + ". Using the default value: "
+                     + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Read a boolean parameter.
+     *
+     * @param parameters   the parameters
+     * @param name         the parameter name
+     * @param defaultValue value used when the parameter is not set
+     * @return parameter value
+     */
+    public static boolean getBooleanParameter(Map<String, String> parameters, String name, boolean defaultValue) {
+        String value = parameters != null ? parameters.get(name) : null;
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+}
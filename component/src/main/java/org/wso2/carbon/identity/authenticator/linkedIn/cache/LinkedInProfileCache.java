@@ -0,0 +1,258 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.cache;
+
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded, expiring in-memory cache of LinkedIn profile claims. Profiles are stored against the LinkedIn
+ * member id within the scope of an identity provider, see {@link ProfileKey}, so identity providers requesting
+ * different fields or API versions never share claims. The member id is only known once the profile is fetched, so
+ * logins look profiles up by the SHA-256 hash of their access token, which is kept as an index to the member id.
+ * A login hits the cache when LinkedIn hands out an access token it has already seen, for example when a member
+ * logs in again while the token issued on the previous login is still valid. The raw access token is never held by
+ * the cache. A profile expires a fixed time after it was fetched on a login; a background refresh replaces its claims
+ * but never extends its expiry.
+ */
+public class LinkedInProfileCache {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final Map<ProfileKey, CacheEntry> profiles;
+    private final Map<String, String> tokenIndex;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public LinkedInProfileCache(int maxEntries, long timeToLive) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.profiles = new LinkedHashMap<ProfileKey, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProfileKey, CacheEntry> eldest) {
+                if (size() > LinkedInProfileCache.this.maxEntries) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.tokenIndex = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > LinkedInProfileCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Create the profile cache when it is enabled.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return the profile cache, or null when profile caching is disabled
+     */
+    public static LinkedInProfileCache fromParameters(Map<String, String> parameters) {
+        if (!LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                LinkedInAuthenticatorConstants.PROFILE_CACHE_ENABLED, false)) {
+            return null;
+        }
+        return new LinkedInProfileCache(
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_CACHE_MAX_ENTRIES,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_CACHE_MAX_ENTRIES),
+                TimeUnit.SECONDS.toMillis(LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_CACHE_TTL,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_CACHE_TTL)));
+    }
+
+    /**
+     * Hash an access token to be used as a cache key.
+     *
+     * @param accessToken the access token
+     * @return hex encoded SHA-256 hash of the token
+     */
+    public static String hashToken(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Get the cached claims of the member the access token was issued to.
+     *
+     * @param scope     the profile cache scope of the identity provider
+     * @param tokenHash hash of the access token
+     * @return the cached immutable claims, or null if there is no fresh entry
+     */
+    public synchronized Map<ClaimMapping, String> getByTokenHash(String scope, String tokenHash) {
+        String memberId = tokenIndex.get(tokenIndexKey(scope, tokenHash));
+        if (memberId == null) {
+            return miss();
+        }
+        ProfileKey key = new ProfileKey(scope, memberId);
+        CacheEntry entry = profiles.get(key);
+        if (entry == null) {
+            return miss();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            profiles.remove(key);
+            evictionCount.incrementAndGet();
+            return miss();
+        }
+        entry.read = true;
+        hitCount.incrementAndGet();
+        return entry.claims;
+    }
+
+    /**
+     * Cache the claims of a LinkedIn member.
+     *
+     * @param key       the member id and the profile cache scope of the identity provider
+     * @param tokenHash hash of the access token the claims were fetched with, may be null
+     * @param claims    the claims
+     */
+    public synchronized void put(ProfileKey key, String tokenHash, Map<ClaimMapping, String> claims) {
+        long now = System.currentTimeMillis();
+        profiles.put(key, new CacheEntry(CompactClaimMap.copyOf(claims), now, now + timeToLive));
+        if (tokenHash != null) {
+            tokenIndex.put(tokenIndexKey(key.getScope(), tokenHash), key.getMemberId());
+        }
+    }
+
+    /**
+     * Replace the claims of a cached profile with refreshed claims. The profile keeps its expiry time, and a profile
+     * which has expired or has been evicted in the meantime is not added back.
+     *
+     * @param key    the member id and the profile cache scope of the identity provider
+     * @param claims the refreshed claims
+     * @return true if the cached profile was refreshed
+     */
+    public synchronized boolean refresh(ProfileKey key, Map<ClaimMapping, String> claims) {
+        CacheEntry entry = profiles.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || entry.isExpired(now)) {
+            return false;
+        }
+        entry.claims = CompactClaimMap.copyOf(claims);
+        entry.fetchTime = now;
+        return true;
+    }
+
+    /**
+     * Get the profiles which have reached the given age and have been read by a login since they were fetched or
+     * last selected for a refresh. Selecting a profile clears its read mark, so a profile is refreshed at most once
+     * per read and profiles of members who do not log in again are left to expire.
+     *
+     * @param refreshAfter the age in milliseconds
+     * @param maxProfiles  the maximum number of profiles returned
+     * @return keys of the stale profiles, least recently used first
+     */
+    public synchronized List<ProfileKey> getStaleProfiles(long refreshAfter, int maxProfiles) {
+        List<ProfileKey> keys = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        long fetchedBefore = now - refreshAfter;
+        for (Map.Entry<ProfileKey, CacheEntry> entry : profiles.entrySet()) {
+            if (keys.size() >= maxProfiles) {
+                break;
+            }
+            CacheEntry cacheEntry = entry.getValue();
+            if (cacheEntry.read && cacheEntry.fetchTime <= fetchedBefore && !cacheEntry.isExpired(now)) {
+                cacheEntry.read = false;
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Remove all the cached profiles.
+     */
+    public synchronized void clear() {
+        profiles.clear();
+        tokenIndex.clear();
+    }
+
+    public synchronized int size() {
+        return profiles.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private static String tokenIndexKey(String scope, String tokenHash) {
+        // the hash has a fixed length, so the key cannot be produced by another scope and hash
+        return scope + '\n' + tokenHash;
+    }
+
+    private Map<ClaimMapping, String> miss() {
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    private static class CacheEntry {
+
+        private final long expiryTime;
+        private Map<ClaimMapping, String> claims;
+        private long fetchTime;
+        private boolean read;
+
+        private CacheEntry(Map<ClaimMapping, String> claims, long fetchTime, long expiryTime) {
+            this.claims = claims;
+            this.fetchTime = fetchTime;
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiryTime;
+        }
+    }
+}
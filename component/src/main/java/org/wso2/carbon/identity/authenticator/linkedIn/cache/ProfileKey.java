@@ -0,0 +1,72 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.cache;
+
+/**
+ * Key of a cached LinkedIn profile: the member id within the scope of the identity provider that fetched it. Two
+ * identity providers may request different fields or API versions, so the same member has a profile in each scope.
+ */
+public final class ProfileKey {
+
+    private final String scope;
+    private final String memberId;
+
+    public ProfileKey(String scope, String memberId) {
+        this.scope = scope;
+        this.memberId = memberId;
+    }
+
+    /**
+     * Build the profile cache scope of an identity provider.
+     *
+     * @param tenantDomain    the tenant domain
+     * @param idpName         the identity provider name
+     * @param userInfoUrl     the user info URL, including the field selector
+     * @param emailAddressUrl the v2 email address URL, or null for the v1 API
+     * @return the scope
+     */
+    public static String scope(String tenantDomain, String idpName, String userInfoUrl, String emailAddressUrl) {
+        return tenantDomain + '\n' + idpName + '\n' + userInfoUrl + '\n' + emailAddressUrl;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProfileKey)) {
+            return false;
+        }
+        ProfileKey other = (ProfileKey) o;
+        return scope.equals(other.scope) && memberId.equals(other.memberId);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * scope.hashCode() + memberId.hashCode();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the claim mappings of a claim dialect. The mappings of the known fields are built once and shared
+ * by every login; mappings of other fields are built on first use and kept up to a fixed number of fields.
+ * The shared mappings and their claims are immutable, their setters throw {@link UnsupportedOperationException}.
+ */
+public class ClaimMappingRegistry {
+
+    private static final int MAX_DYNAMIC_MAPPINGS = 256;
+
+    /**
+     * Registry of the LinkedIn claim dialect.
+     */
+    public static final ClaimMappingRegistry LINKEDIN = new ClaimMappingRegistry(
+            LinkedInAuthenticatorConstants.CLAIM_DIALECT_URI, LinkedInAuthenticatorConstants.USER_ID,
+            LinkedInAuthenticatorConstants.FIRST_NAME, LinkedInAuthenticatorConstants.LAST_NAME,
+            LinkedInAuthenticatorConstants.INDUSTRY, LinkedInAuthenticatorConstants.HEADLINE,
+            LinkedInAuthenticatorConstants.EMAIL_ADDRESS);
+
+    private final String dialectUri;
+    private final Map<String, ClaimMapping> knownMappings;
+    private final ConcurrentHashMap<String, ClaimMapping> dynamicMappings = new ConcurrentHashMap<>();
+
+    public ClaimMappingRegistry(String dialectUri, String... knownFields) {
+        this.dialectUri = dialectUri;
+        Map<String, ClaimMapping> mappings = new HashMap<>();
+        for (String field : knownFields) {
+            mappings.put(field, createClaimMapping(field));
+        }
+        this.knownMappings = Collections.unmodifiableMap(mappings);
+    }
+
+    /**
+     * Get the claim mapping of a field.
+     *
+     * @param field the field name
+     * @return the shared claim mapping of the field
+     */
+    public ClaimMapping getClaimMapping(String field) {
+        ClaimMapping claimMapping = knownMappings.get(field);
+        if (claimMapping != null) {
+            return claimMapping;
+        }
+        claimMapping = dynamicMappings.get(field);
+        if (claimMapping != null) {
+            return claimMapping;
+        }
+        claimMapping = createClaimMapping(field);
+        if (dynamicMappings.size() < MAX_DYNAMIC_MAPPINGS) {
+            ClaimMapping existing = dynamicMappings.putIfAbsent(field, claimMapping);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return claimMapping;
+    }
+
+    public String getDialectUri() {
+        return dialectUri;
+    }
+
+    private ClaimMapping createClaimMapping(String field) {
+        return new ImmutableClaimMapping(new ImmutableClaim(dialectUri + "/" + field));
+    }
+
+    /**
+     * Claim which can not be modified once built.
+     */
+    private static final class ImmutableClaim extends Claim {
+
+        private static final long serialVersionUID = -2836419370544173624L;
+
+        ImmutableClaim(String claimUri) {
+            super.setClaimUri(claimUri);
+        }
+
+        @Override
+        public void setClaimUri(String claimUri) {
+            throw new UnsupportedOperationException("Shared claims can not be modified");
+        }
+
+        @Override
+        public void setClaimId(int claimId) {
+            throw new UnsupportedOperationException("Shared claims can not be modified");
+        }
+    }
+
+    /**
+     * Claim mapping which maps a claim to itself and can not be modified once built.
+     */
+    private static final class ImmutableClaimMapping extends ClaimMapping {
+
+        private static final long serialVersionUID = 4197530862314707915L;
+
+        ImmutableClaimMapping(Claim claim) {
+            super.setRemoteClaim(claim);
+            super.setLocalClaim(claim);
+        }
+
+        @Override
+        public void setRemoteClaim(Claim remoteClaim) {
+            throw new UnsupportedOperationException("Shared claim mappings can not be modified");
+        }
+
+        @Override
+        public void setLocalClaim(Claim localClaim) {
+            throw new UnsupportedOperationException("Shared claim mappings can not be modified");
+        }
+
+        @Override
+        public void setDefaultValue(String defaultValue) {
+            throw new UnsupportedOperationException("Shared claim mappings can not be modified");
+        }
+
+        @Override
+        public void setRequested(boolean requested) {
+            throw new UnsupportedOperationException("Shared claim mappings can not be modified");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable claims map backed by two arrays. User claims are few, so a linear lookup is as fast as hashing while
+ * the map takes a fraction of the memory of a {@link java.util.HashMap} in the session and the replicated
+ * authentication context.
+ */
+public final class CompactClaimMap extends AbstractMap<ClaimMapping, String> implements Serializable {
+
+    private static final long serialVersionUID = 4367284618275630147L;
+
+    private static final CompactClaimMap EMPTY = new CompactClaimMap(new ClaimMapping[0], new String[0]);
+
+    private final ClaimMapping[] keys;
+    private final String[] values;
+
+    private CompactClaimMap(ClaimMapping[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static CompactClaimMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Get an immutable compact copy of a claims map.
+     *
+     * @param claims the claims
+     * @return compact claims map
+     */
+    public static CompactClaimMap copyOf(Map<ClaimMapping, String> claims) {
+        if (claims instanceof CompactClaimMap) {
+            return (CompactClaimMap) claims;
+        }
+        Builder builder = new Builder(claims.size());
+        for (Map.Entry<ClaimMapping, String> claim : claims.entrySet()) {
+            builder.put(claim.getKey(), claim.getValue());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<ClaimMapping, String>> entrySet() {
+        return new AbstractSet<Entry<ClaimMapping, String>>() {
+            @Override
+            public Iterator<Entry<ClaimMapping, String>> iterator() {
+                return new Iterator<Entry<ClaimMapping, String>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Entry<ClaimMapping, String> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<ClaimMapping, String> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Claims map is immutable");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        // The shared mappings of the registry match by reference, so try that before equals.
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Collects claims for a {@link CompactClaimMap}.
+     */
+    public static final class Builder {
+
+        private ClaimMapping[] keys;
+        private String[] values;
+        private int size;
+
+        public Builder(int expectedSize) {
+            keys = new ClaimMapping[Math.max(expectedSize, 1)];
+            values = new String[keys.length];
+        }
+
+        /**
+         * Add a claim, replacing the value of an existing claim with the same mapping.
+         *
+         * @param claimMapping the claim mapping
+         * @param value        the claim value
+         * @return this builder
+         */
+        public Builder put(ClaimMapping claimMapping, String value) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == claimMapping || keys[i].equals(claimMapping)) {
+                    values[i] = value;
+                    return this;
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = claimMapping;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CompactClaimMap build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new CompactClaimMap(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+        }
+    }
+}
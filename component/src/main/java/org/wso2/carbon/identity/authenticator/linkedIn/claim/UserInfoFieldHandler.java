@@ -0,0 +1,35 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+/**
+ * Receives the top level fields of a LinkedIn user info response as they are parsed.
+ */
+public interface UserInfoFieldHandler {
+
+    /**
+     * Handle a top level field of the user info response. Nested objects and arrays are passed as their JSON
+     * text.
+     *
+     * @param name  the field name
+     * @param value the field value
+     */
+    void onField(String name, String value);
+}
@@ -0,0 +1,286 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming parser of the LinkedIn user info JSON response. The response is read once and each top level field
+ * is handed to a {@link UserInfoFieldHandler} without building the body as a string or a JSON object.
+ */
+public class UserInfoParser {
+
+    private static final int END_OF_STREAM = -1;
+
+    private final Reader reader;
+    private final StringBuilder buffer = new StringBuilder(64);
+    private int pushedBack = END_OF_STREAM;
+    private boolean hasPushedBack;
+
+    private UserInfoParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parse the user info response.
+     *
+     * @param inputStream     the response stream
+     * @param maxResponseSize the maximum number of bytes read from the stream
+     * @param handler         receives the top level fields
+     * @return the number of fields handled
+     * @throws IOException if the response can not be read, is not a JSON object or exceeds the size limit
+     */
+    public static int parse(InputStream inputStream, long maxResponseSize, UserInfoFieldHandler handler)
+            throws IOException {
+        return parse(new BoundedInputStream(inputStream, maxResponseSize), handler);
+    }
+
+    /**
+     * Parse the user info response from a bounded stream, which counts the bytes read.
+     *
+     * @param inputStream the bounded response stream
+     * @param handler     receives the top level fields
+     * @return the number of fields handled
+     * @throws IOException if the response can not be read, is not a JSON object or exceeds the size limit
+     */
+    public static int parse(BoundedInputStream inputStream, UserInfoFieldHandler handler) throws IOException {
+        return parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8), handler);
+    }
+
+    /**
+     * Parse the user info response from a reader of the decoded response.
+     *
+     * @param reader  the response reader
+     * @param handler receives the top level fields
+     * @return the number of fields handled
+     * @throws IOException if the response can not be read or is not a JSON object
+     */
+    public static int parse(Reader reader, UserInfoFieldHandler handler) throws IOException {
+        return new UserInfoParser(reader).parseObject(handler);
+    }
+
+    /**
+     * Parse a JSON array of objects, such as a nested value of a user info response.
+     *
+     * @param reader  the array reader
+     * @param handler receives the top level fields of each object
+     * @return the number of fields handled
+     * @throws IOException if the array can not be read or is not an array of JSON objects
+     */
+    public static int parseElements(Reader reader, UserInfoFieldHandler handler) throws IOException {
+        return new UserInfoParser(reader).parseArray(handler);
+    }
+
+    private int parseObject(UserInfoFieldHandler handler) throws IOException {
+        int fields = 0;
+        int c = nextToken();
+        if (c == END_OF_STREAM) {
+            return fields;
+        }
+        expect(c, '{');
+        c = nextToken();
+        if (c == '}') {
+            return fields;
+        }
+        while (true) {
+            expect(c, '"');
+            String name = readString();
+            expect(nextToken(), ':');
+            String value = readValue();
+            if (value != null) {
+                handler.onField(name, value);
+                fields++;
+            }
+            c = nextToken();
+            if (c == '}') {
+                return fields;
+            }
+            expect(c, ',');
+            c = nextToken();
+        }
+    }
+
+    private int parseArray(UserInfoFieldHandler handler) throws IOException {
+        int fields = 0;
+        int c = nextToken();
+        if (c == END_OF_STREAM) {
+            return fields;
+        }
+        expect(c, '[');
+        c = nextToken();
+        if (c == ']') {
+            return fields;
+        }
+        while (true) {
+            pushBack(c);
+            fields += parseObject(handler);
+            c = nextToken();
+            if (c == ']') {
+                return fields;
+            }
+            expect(c, ',');
+            c = nextToken();
+        }
+    }
+
+    /**
+     * Read a value. Strings are unescaped, other scalars are returned as written, null is returned as null and
+     * nested structures are returned as their JSON text.
+     */
+    private String readValue() throws IOException {
+        int c = nextToken();
+        if (c == '"') {
+            return readString();
+        }
+        if (c == '{' || c == '[') {
+            buffer.setLength(0);
+            buffer.append((char) c);
+            copyStructure(c == '{' ? '}' : ']');
+            return buffer.toString();
+        }
+        buffer.setLength(0);
+        while (c != END_OF_STREAM && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+            buffer.append((char) c);
+            c = read();
+        }
+        pushBack(c);
+        if (buffer.length() == 0) {
+            throw new IOException("Missing value in the user info response");
+        }
+        String literal = buffer.toString();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private String readString() throws IOException {
+        buffer.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == END_OF_STREAM) {
+                throw new IOException("Unterminated string in the user info response");
+            }
+            if (c == '"') {
+                return buffer.toString();
+            }
+            if (c == '\\') {
+                buffer.append(readEscape());
+            } else {
+                buffer.append((char) c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw new IOException("Invalid unicode escape in the user info response");
+                    }
+                    code = (code << 4) | digit;
+                }
+                return (char) code;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw new IOException("Invalid escape sequence in the user info response");
+        }
+    }
+
+    /**
+     * Copy a nested object or array into the buffer, keeping string contents intact.
+     */
+    private void copyStructure(char close) throws IOException {
+        int depth = 1;
+        boolean inString = false;
+        while (depth > 0) {
+            int c = read();
+            if (c == END_OF_STREAM) {
+                throw new IOException("Unterminated structure in the user info response");
+            }
+            buffer.append((char) c);
+            if (inString) {
+                if (c == '\\') {
+                    int escaped = read();
+                    if (escaped == END_OF_STREAM) {
+                        throw new IOException("Unterminated string in the user info response");
+                    }
+                    buffer.append((char) escaped);
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        if (buffer.charAt(buffer.length() - 1) != close) {
+            throw new IOException("Mismatched brackets in the user info response");
+        }
+    }
+
+    private void expect(int c, char expected) throws IOException {
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' in the user info response");
+        }
+    }
+
+    private int nextToken() throws IOException {
+        int c = read();
+        while (c != END_OF_STREAM && Character.isWhitespace(c)) {
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (hasPushedBack) {
+            hasPushedBack = false;
+            return pushedBack;
+        }
+        return reader.read();
+    }
+
+    private void pushBack(int c) {
+        pushedBack = c;
+        hasPushedBack = true;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Narrows the field selector of the LinkedIn v1 user info URL to the fields an identity provider needs. The fields
+ * are either listed in the identity provider configuration or derived from its claim mappings, and the member id is
+ * always requested. The v2 profile URL has no field selector, so the authenticator does not project it.
+ */
+public class UserInfoProjection {
+
+    /**
+     * Value of the user info fields property which derives the fields from the claim mappings.
+     */
+    public static final String AUTO = "auto";
+
+    private static final Pattern FIELD_SELECTOR = Pattern.compile("~:\\(([^)]*)\\)");
+
+    private final String dialectUri;
+
+    public UserInfoProjection(String dialectUri) {
+        this.dialectUri = dialectUri;
+    }
+
+    /**
+     * Get the user info URL which asks only for the fields the identity provider needs.
+     *
+     * @param userInfoUrl the user info URL with the full field selector
+     * @param fields      comma separated fields, {@link #AUTO} or blank for all the fields of the URL
+     * @param claimConfig the claim configuration of the identity provider, used with {@link #AUTO}
+     * @return the projected user info URL
+     */
+    public String getUserInfoUrl(String userInfoUrl, String fields, ClaimConfig claimConfig) {
+        if (StringUtils.isBlank(fields)) {
+            return userInfoUrl;
+        }
+        Set<String> selectors = AUTO.equalsIgnoreCase(fields.trim()) ? getMappedFields(claimConfig) :
+                                toFieldSelectors(fields);
+        if (selectors == null) {
+            return userInfoUrl;
+        }
+        return project(userInfoUrl, selectors);
+    }
+
+    /**
+     * Convert a LinkedIn claim field name to its field selector, such as firstName to first-name.
+     *
+     * @param field the field name
+     * @return the field selector
+     */
+    public static String toFieldSelector(String field) {
+        StringBuilder selector = new StringBuilder(field.length() + 4);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    selector.append('-');
+                }
+                selector.append(Character.toLowerCase(c));
+            } else {
+                selector.append(c);
+            }
+        }
+        return selector.toString();
+    }
+
+    private Set<String> toFieldSelectors(String fields) {
+        Set<String> selectors = new TreeSet<>();
+        selectors.add(LinkedInAuthenticatorConstants.USER_ID);
+        for (String field : fields.split(",")) {
+            if (StringUtils.isNotBlank(field)) {
+                selectors.add(toFieldSelector(field.trim()));
+            }
+        }
+        return selectors;
+    }
+
+    /**
+     * Get the fields of the remote claims the identity provider maps, as only those reach the service provider.
+     *
+     * @param claimConfig the claim configuration
+     * @return the field selectors, or null if the identity provider does not map LinkedIn claims
+     */
+    private Set<String> getMappedFields(ClaimConfig claimConfig) {
+        if (claimConfig == null || claimConfig.isLocalClaimDialect() || claimConfig.getClaimMappings() == null ||
+            claimConfig.getClaimMappings().length == 0) {
+            return null;
+        }
+        Set<String> selectors = new TreeSet<>();
+        selectors.add(LinkedInAuthenticatorConstants.USER_ID);
+        addField(selectors, claimConfig.getUserClaimURI());
+        for (ClaimMapping claimMapping : claimConfig.getClaimMappings()) {
+            if (claimMapping.getRemoteClaim() != null) {
+                addField(selectors, claimMapping.getRemoteClaim().getClaimUri());
+            }
+        }
+        return selectors;
+    }
+
+    private void addField(Set<String> selectors, String claimUri) {
+        if (claimUri != null && claimUri.length() > dialectUri.length() + 1 && claimUri.startsWith(dialectUri) &&
+            claimUri.charAt(dialectUri.length()) == '/') {
+            selectors.add(toFieldSelector(claimUri.substring(dialectUri.length() + 1)));
+        }
+    }
+
+    private static String project(String userInfoUrl, Set<String> selectors) {
+        Matcher matcher = FIELD_SELECTOR.matcher(userInfoUrl);
+        if (!matcher.find()) {
+            return userInfoUrl;
+        }
+        return userInfoUrl.substring(0, matcher.start(1)) + StringUtils.join(selectors, ',') +
+               userInfoUrl.substring(matcher.end(1));
+    }
+}
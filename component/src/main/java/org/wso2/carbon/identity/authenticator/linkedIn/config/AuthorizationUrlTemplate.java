@@ -0,0 +1,72 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.config;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Authorization request URL of an identity provider, encoded once up to the state parameter. Building the URL of a
+ * login only encodes and appends its state.
+ */
+public class AuthorizationUrlTemplate {
+
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+    private final String prefix;
+
+    public AuthorizationUrlTemplate(String authorizationEndpoint, String clientId, String callbackUrl,
+                                    String responseType, String queryString) throws UnsupportedEncodingException {
+        StringBuilder url = new StringBuilder(authorizationEndpoint.length() + 256);
+        url.append(authorizationEndpoint).append(authorizationEndpoint.contains("?") ? '&' : '?');
+        url.append("response_type=").append(URLEncoder.encode(responseType, ENCODING));
+        if (clientId != null) {
+            url.append("&client_id=").append(URLEncoder.encode(clientId, ENCODING));
+        }
+        if (callbackUrl != null) {
+            url.append("&redirect_uri=").append(URLEncoder.encode(callbackUrl, ENCODING));
+        }
+        if (StringUtils.isNotEmpty(queryString)) {
+            if (!queryString.startsWith("&")) {
+                url.append('&');
+            }
+            url.append(queryString);
+        }
+        url.append("&state=");
+        this.prefix = url.toString();
+    }
+
+    /**
+     * Build the authorization request URL of a login.
+     *
+     * @param state the state of the login
+     * @return the authorization request URL
+     * @throws UnsupportedEncodingException
+     */
+    public String getUrl(String state) throws UnsupportedEncodingException {
+        if (state == null) {
+            return prefix.substring(0, prefix.length() - "&state=".length());
+        }
+        return prefix + URLEncoder.encode(state, ENCODING);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.config;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, validated configuration of a LinkedIn identity provider, compiled once from its authenticator
+ * properties and claim configuration and shared by every login of the identity provider.
+ */
+public class LinkedInIdpConfig {
+
+    private final Map<String, String> authenticatorProperties;
+    private final int authenticatorPropertiesHash;
+    private final boolean hasClaimConfig;
+    private final boolean localClaimDialect;
+    private final String userClaimUri;
+    private final String[] remoteClaimUris;
+    private final String clientId;
+    private final String clientSecret;
+    private final String callbackUrl;
+    private final String tokenEndpoint;
+    private final String userInfoUrl;
+    private final String emailAddressUrl;
+    private final boolean useProfileCache;
+    private final String profileCacheScope;
+    private final boolean derivedUserInfoFields;
+    private final int maxConcurrentRequests;
+    private final int maxQueuedRequests;
+    private final AuthorizationUrlTemplate authorizationUrlTemplate;
+
+    public LinkedInIdpConfig(Map<String, String> authenticatorProperties, ClaimConfig claimConfig, String clientId,
+                             String clientSecret, String callbackUrl, String tokenEndpoint, String userInfoUrl,
+                             String emailAddressUrl, boolean useProfileCache, String profileCacheScope,
+                             boolean derivedUserInfoFields,
+                             int maxConcurrentRequests, int maxQueuedRequests,
+                             AuthorizationUrlTemplate authorizationUrlTemplate) {
+        this.authenticatorProperties = new HashMap<>(authenticatorProperties);
+        this.authenticatorPropertiesHash = this.authenticatorProperties.hashCode();
+        // the claim configuration is mutable, so only the parts the user info fields are derived from are kept
+        this.hasClaimConfig = derivedUserInfoFields && claimConfig != null;
+        this.localClaimDialect = hasClaimConfig && claimConfig.isLocalClaimDialect();
+        this.userClaimUri = hasClaimConfig ? claimConfig.getUserClaimURI() : null;
+        this.remoteClaimUris = hasClaimConfig ? getRemoteClaimUris(claimConfig) : null;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.callbackUrl = callbackUrl;
+        this.tokenEndpoint = tokenEndpoint;
+        this.userInfoUrl = userInfoUrl;
+        this.emailAddressUrl = emailAddressUrl;
+        this.useProfileCache = useProfileCache;
+        this.profileCacheScope = profileCacheScope;
+        this.derivedUserInfoFields = derivedUserInfoFields;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueuedRequests = maxQueuedRequests;
+        this.authorizationUrlTemplate = authorizationUrlTemplate;
+    }
+
+    /**
+     * Check whether the configuration was compiled from the given identity provider settings. The properties are
+     * compared with a copy taken when it was compiled. Their hash, which the property strings cache, is compared
+     * first, so most updates are rejected without comparing values. The claim configuration only matters when the
+     * user info fields are derived from it, and then only its claim dialect, user claim URI and remote claim URIs.
+     *
+     * @param authenticatorProperties the authenticator properties
+     * @param claimConfig             the claim configuration
+     * @return true if the configuration is up to date
+     */
+    public boolean isCompiledFrom(Map<String, String> authenticatorProperties, ClaimConfig claimConfig) {
+        return authenticatorPropertiesHash == authenticatorProperties.hashCode() &&
+               this.authenticatorProperties.equals(authenticatorProperties) &&
+               (!derivedUserInfoFields || isCompiledFrom(claimConfig));
+    }
+
+    private boolean isCompiledFrom(ClaimConfig claimConfig) {
+        if (claimConfig == null || !hasClaimConfig) {
+            return claimConfig == null && !hasClaimConfig;
+        }
+        if (claimConfig.isLocalClaimDialect() != localClaimDialect ||
+            !StringUtils.equals(claimConfig.getUserClaimURI(), userClaimUri)) {
+            return false;
+        }
+        ClaimMapping[] claimMappings = claimConfig.getClaimMappings();
+        int count = claimMappings != null ? claimMappings.length : 0;
+        if (count != remoteClaimUris.length) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!StringUtils.equals(getRemoteClaimUri(claimMappings[i]), remoteClaimUris[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the authorization request URL of a login.
+     *
+     * @param state the state of the login
+     * @return the authorization request URL
+     * @throws UnsupportedEncodingException
+     */
+    public String getAuthorizationUrl(String state) throws UnsupportedEncodingException {
+        return authorizationUrlTemplate.getUrl(state);
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public String getTokenEndpoint() {
+        return tokenEndpoint;
+    }
+
+    /**
+     * Get the user info URL, with the field selector narrowed to the fields the identity provider needs.
+     *
+     * @return the user info URL
+     */
+    public String getUserInfoUrl() {
+        return userInfoUrl;
+    }
+
+    /**
+     * Get the email address URL of the v2 API, which is called next to the profile URL of the v2 API.
+     *
+     * @return the email address URL, or null if the identity provider uses the v1 API
+     */
+    public String getEmailAddressUrl() {
+        return emailAddressUrl;
+    }
+
+    public boolean isUseProfileCache() {
+        return useProfileCache;
+    }
+
+    /**
+     * Get the scope of the profiles this identity provider caches. It covers the tenant, the identity provider and
+     * the user info URLs, so identity providers requesting different fields or API versions never share claims.
+     *
+     * @return the profile cache scope
+     */
+    public String getProfileCacheScope() {
+        return profileCacheScope;
+    }
+
+    /**
+     * Get the maximum number of concurrent LinkedIn callbacks of the identity provider.
+     *
+     * @return the limit, or 0 if only the tenant limit applies
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    private static String[] getRemoteClaimUris(ClaimConfig claimConfig) {
+        ClaimMapping[] claimMappings = claimConfig.getClaimMappings();
+        if (claimMappings == null) {
+            return new String[0];
+        }
+        String[] remoteClaimUris = new String[claimMappings.length];
+        for (int i = 0; i < claimMappings.length; i++) {
+            remoteClaimUris[i] = getRemoteClaimUri(claimMappings[i]);
+        }
+        return remoteClaimUris;
+    }
+
+    private static String getRemoteClaimUri(ClaimMapping claimMapping) {
+        return claimMapping != null && claimMapping.getRemoteClaim() != null ?
+               claimMapping.getRemoteClaim().getClaimUri() : null;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled configurations of the LinkedIn identity providers of each tenant. Lookups are lock free; once the cache
+ * holds the maximum number of identity providers, adding one evicts the least recently used configuration.
+ */
+public class LinkedInIdpConfigCache {
+
+    private static final int MAX_IDENTITY_PROVIDERS = 1024;
+
+    private final int maxIdentityProviders;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CacheEntry>> configs = new ConcurrentHashMap<>();
+
+    public LinkedInIdpConfigCache() {
+        this(MAX_IDENTITY_PROVIDERS);
+    }
+
+    public LinkedInIdpConfigCache(int maxIdentityProviders) {
+        this.maxIdentityProviders = maxIdentityProviders;
+    }
+
+    /**
+     * Get the compiled configuration of an identity provider.
+     *
+     * @param tenantDomain the tenant domain
+     * @param idpName      the identity provider name
+     * @return the configuration, or null if it has not been compiled
+     */
+    public LinkedInIdpConfig get(String tenantDomain, String idpName) {
+        ConcurrentHashMap<String, CacheEntry> tenantConfigs = configs.get(tenantDomain);
+        CacheEntry entry = tenantConfigs != null ? tenantConfigs.get(idpName) : null;
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccessTime = System.nanoTime();
+        return entry.config;
+    }
+
+    /**
+     * Keep the compiled configuration of an identity provider, replacing the configuration compiled before it was
+     * updated.
+     *
+     * @param tenantDomain the tenant domain
+     * @param idpName      the identity provider name
+     * @param config       the configuration
+     */
+    public void put(String tenantDomain, String idpName, LinkedInIdpConfig config) {
+        ConcurrentHashMap<String, CacheEntry> tenantConfigs = configs.get(tenantDomain);
+        if (tenantConfigs == null) {
+            ConcurrentHashMap<String, CacheEntry> newConfigs = new ConcurrentHashMap<>();
+            tenantConfigs = configs.putIfAbsent(tenantDomain, newConfigs);
+            if (tenantConfigs == null) {
+                tenantConfigs = newConfigs;
+            }
+        }
+        if (tenantConfigs.put(idpName, new CacheEntry(config)) == null) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Remove the configurations of all identity providers.
+     */
+    public void clear() {
+        configs.clear();
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, CacheEntry> tenantConfigs : configs.values()) {
+            size += tenantConfigs.size();
+        }
+        return size;
+    }
+
+    /**
+     * Evict the least recently used configurations over the maximum. Only adding an identity provider scans the
+     * cache, which happens once per identity provider and update.
+     */
+    private synchronized void evictLeastRecentlyUsed() {
+        for (int size = size(); size > maxIdentityProviders; size--) {
+            ConcurrentHashMap<String, CacheEntry> eldestTenantConfigs = null;
+            String eldestIdpName = null;
+            CacheEntry eldest = null;
+            for (ConcurrentHashMap<String, CacheEntry> tenantConfigs : configs.values()) {
+                for (Map.Entry<String, CacheEntry> entry : tenantConfigs.entrySet()) {
+                    if (eldest == null || entry.getValue().lastAccessTime - eldest.lastAccessTime < 0) {
+                        eldestTenantConfigs = tenantConfigs;
+                        eldestIdpName = entry.getKey();
+                        eldest = entry.getValue();
+                    }
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            eldestTenantConfigs.remove(eldestIdpName, eldest);
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final LinkedInIdpConfig config;
+        private volatile long lastAccessTime = System.nanoTime();
+
+        private CacheEntry(LinkedInIdpConfig config) {
+            this.config = config;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.internal;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.LinkedInProfileCache;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetricsRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.refresh.ProfileRefresher;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInBulkheads;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInCallbackExecutor;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+
+/**
+ * Holds the services which the LinkedIn authenticator component shares with the authenticator.
+ */
+public class LinkedInAuthenticatorDataHolder {
+
+    private static LinkedInAuthenticatorDataHolder instance = new LinkedInAuthenticatorDataHolder();
+
+    private volatile LinkedInHttpTransport httpTransport;
+    private volatile LinkedInCallbackExecutor callbackExecutor;
+    private volatile LinkedInProfileCache profileCache;
+    private volatile LinkedInMetricsRegistry metricsRegistry;
+    private volatile ProfileRefresher profileRefresher;
+    private volatile LinkedInBulkheads bulkheads;
+    private volatile StateSigner stateSigner;
+
+    private LinkedInAuthenticatorDataHolder() {
+    }
+
+    public static LinkedInAuthenticatorDataHolder getInstance() {
+        return instance;
+    }
+
+    public LinkedInHttpTransport getHttpTransport() {
+        return httpTransport;
+    }
+
+    public void setHttpTransport(LinkedInHttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+    }
+
+    public LinkedInCallbackExecutor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    public void setCallbackExecutor(LinkedInCallbackExecutor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public LinkedInProfileCache getProfileCache() {
+        return profileCache;
+    }
+
+    public void setProfileCache(LinkedInProfileCache profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    public LinkedInMetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public void setMetricsRegistry(LinkedInMetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    public ProfileRefresher getProfileRefresher() {
+        return profileRefresher;
+    }
+
+    public void setProfileRefresher(ProfileRefresher profileRefresher) {
+        this.profileRefresher = profileRefresher;
+    }
+
+    public LinkedInBulkheads getBulkheads() {
+        return bulkheads;
+    }
+
+    public void setBulkheads(LinkedInBulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    public StateSigner getStateSigner() {
+        return stateSigner;
+    }
+
+    public void setStateSigner(StateSigner stateSigner) {
+        this.stateSigner = stateSigner;
+    }
+}
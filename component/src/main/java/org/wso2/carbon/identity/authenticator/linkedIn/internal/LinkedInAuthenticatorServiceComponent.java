@@ -24,8 +24,20 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
 import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticator;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.LinkedInProfileCache;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetricsRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlowRecorder;
+import org.wso2.carbon.identity.authenticator.linkedIn.refresh.ProfileRefresher;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInBulkheads;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInCallbackExecutor;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransportConfig;
 
 import java.util.Hashtable;
+import java.util.Map;
 
 /**
  * @scr.component name="identity.application.authenticator.linkedIn.component" immediate="true"
@@ -34,16 +46,39 @@ public class LinkedInAuthenticatorServiceComponent {
 
 	private static Log log = LogFactory.getLog(LinkedInAuthenticatorServiceComponent.class);
 
+	private LinkedInWarmUp warmUp;
+
 	/**
 	 * This method is to register the LinkedIn authenticator service.
 	 *
 	 * @param componentContext the Component Context
 	 */
 	protected void activate(ComponentContext componentContext) {
+		Map<String, String> parameters = LinkedInAuthenticatorUtils.getAuthenticatorParameters();
+		LinkedInAuthenticatorDataHolder dataHolder = LinkedInAuthenticatorDataHolder.getInstance();
+		LinkedInHttpTransport httpTransport =
+				new LinkedInHttpTransport(LinkedInHttpTransportConfig.fromParameters(parameters));
+		LinkedInProfileCache profileCache = LinkedInProfileCache.fromParameters(parameters);
+		dataHolder.setHttpTransport(httpTransport);
+		dataHolder.setCallbackExecutor(LinkedInCallbackExecutor.fromParameters(parameters));
+		dataHolder.setBulkheads(LinkedInBulkheads.fromParameters(parameters));
+		StateSigner stateSigner = StateSigner.fromParameters(parameters);
+		dataHolder.setStateSigner(stateSigner);
+		dataHolder.setProfileCache(profileCache);
+		dataHolder.setProfileRefresher(ProfileRefresher.fromParameters(parameters, profileCache, httpTransport));
+		dataHolder.setMetricsRegistry(new LinkedInMetricsRegistry(LoginFlowRecorder.fromParameters(parameters)));
 		LinkedInAuthenticator authenticator = new LinkedInAuthenticator();
 		Hashtable<String, String> props = new Hashtable<>();
 		componentContext.getBundleContext()
 		                .registerService(ApplicationAuthenticator.class.getName(), authenticator, props);
+		if (LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+				LinkedInAuthenticatorConstants.WARM_UP_ENABLED, false)) {
+			// the warm up runs in the background so that it does not delay the bundle startup
+			warmUp = new LinkedInWarmUp(httpTransport, stateSigner, LinkedInAuthenticatorUtils.getIntParameter(
+					parameters, LinkedInAuthenticatorConstants.WARM_UP_ITERATIONS,
+					LinkedInAuthenticatorConstants.DEFAULT_WARM_UP_ITERATIONS));
+			warmUp.start();
+		}
 		if (log.isDebugEnabled()) {
 			log.debug("linkedIn authenticator is activated");
 		}
@@ -55,6 +90,38 @@ public class LinkedInAuthenticatorServiceComponent {
 	 * @param componentContext the Component Context
 	 */
 	protected void deactivate(ComponentContext componentContext) {
+		if (warmUp != null) {
+			warmUp.stop();
+			warmUp = null;
+		}
+		LinkedInAuthenticatorDataHolder dataHolder = LinkedInAuthenticatorDataHolder.getInstance();
+		ProfileRefresher profileRefresher = dataHolder.getProfileRefresher();
+		if (profileRefresher != null) {
+			profileRefresher.shutdown();
+			dataHolder.setProfileRefresher(null);
+		}
+		LinkedInMetricsRegistry metricsRegistry = dataHolder.getMetricsRegistry();
+		if (metricsRegistry != null) {
+			metricsRegistry.close();
+			dataHolder.setMetricsRegistry(null);
+		}
+		LinkedInProfileCache profileCache = dataHolder.getProfileCache();
+		if (profileCache != null) {
+			profileCache.clear();
+			dataHolder.setProfileCache(null);
+		}
+		dataHolder.setBulkheads(null);
+		dataHolder.setStateSigner(null);
+		LinkedInCallbackExecutor callbackExecutor = dataHolder.getCallbackExecutor();
+		if (callbackExecutor != null) {
+			callbackExecutor.shutdown();
+			dataHolder.setCallbackExecutor(null);
+		}
+		LinkedInHttpTransport httpTransport = dataHolder.getHttpTransport();
+		if (httpTransport != null) {
+			httpTransport.close();
+			dataHolder.setHttpTransport(null);
+		}
 		if (log.isDebugEnabled()) {
 			log.debug("linkedIn authenticator is deactivated");
 		}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.oltu.oauth2.client.request.OAuthClientRequest;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponseFactory;
+import org.apache.oltu.oauth2.client.response.OAuthJSONAccessTokenResponse;
+import org.apache.oltu.oauth2.common.exception.OAuthProblemException;
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+import org.apache.oltu.oauth2.common.message.types.GrantType;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoFieldHandler;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoParser;
+import org.wso2.carbon.identity.authenticator.linkedIn.config.AuthorizationUrlTemplate;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Warms the LinkedIn login path up in the background after the component is activated, so that the first logins
+ * after a restart do not pay for the DNS lookups, TLS handshakes, class loading and interpretation of the
+ * authenticator code.
+ */
+class LinkedInWarmUp implements Runnable {
+
+    private static Log log = LogFactory.getLog(LinkedInWarmUp.class);
+
+    private static final String SAMPLE_TOKEN_RESPONSE = "{\"access_token\":\"warm-up\",\"expires_in\":5183999}";
+    private static final byte[] SAMPLE_USER_INFO = ("{\"id\":\"warm-up\",\"firstName\":\"Warm\",\"lastName\":\"Up\"," +
+            "\"industry\":\"Internet\",\"headline\":\"Warm up\",\"emailAddress\":\"warm-up@example.com\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final LinkedInHttpTransport transport;
+    private final StateSigner stateSigner;
+    private final int iterations;
+    private volatile Thread thread;
+
+    LinkedInWarmUp(LinkedInHttpTransport transport, StateSigner stateSigner, int iterations) {
+        this.transport = transport;
+        this.stateSigner = stateSigner;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Start the warm up on a background thread.
+     */
+    void start() {
+        Thread warmUpThread = new Thread(this, "linkedin-warm-up");
+        warmUpThread.setDaemon(true);
+        thread = warmUpThread;
+        warmUpThread.start();
+    }
+
+    /**
+     * Stop the warm up if it is still running.
+     */
+    void stop() {
+        Thread warmUpThread = thread;
+        if (warmUpThread != null) {
+            warmUpThread.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        try {
+            warmUpConnections();
+            warmUpCode();
+            if (log.isDebugEnabled()) {
+                log.debug("LinkedIn authenticator warm up completed in " + (System.currentTimeMillis() - startTime)
+                          + " ms");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error while warming up the LinkedIn authenticator", e);
+        } finally {
+            thread = null;
+        }
+    }
+
+    /**
+     * Resolve the LinkedIn hosts and open a pooled connection to each of them, which also caches the TLS session for
+     * the further connections.
+     */
+    private void warmUpConnections() {
+        Set<URI> hosts = new LinkedHashSet<>();
+        for (String endpoint : new String[]{LinkedInAuthenticatorConstants.LINKEDIN_OAUTH_ENDPOINT,
+                                            LinkedInAuthenticatorConstants.LINKEDIN_TOKEN_ENDPOINT,
+                                            LinkedInAuthenticatorConstants.LINKEDIN_USERINFO_ENDPOINT}) {
+            URI uri = URI.create(endpoint);
+            hosts.add(URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + "/"));
+        }
+        for (URI host : hosts) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                InetAddress.getAllByName(host.getHost());
+                transport.warmUp(host);
+            } catch (IOException e) {
+                log.warn("Could not warm up the connection to " + host + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run the redirect building, state signing, token response parsing and claim mapping code of a login on
+     * sample data, often enough for it to be compiled.
+     */
+    private void warmUpCode() {
+        try {
+            AuthorizationUrlTemplate authorizationUrlTemplate = new AuthorizationUrlTemplate(
+                    LinkedInAuthenticatorConstants.LINKEDIN_OAUTH_ENDPOINT, "warm-up", "https://localhost/commonauth",
+                    LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE, LinkedInAuthenticatorConstants.QUERY_STRING);
+            for (int i = 0; i < iterations && !Thread.currentThread().isInterrupted(); i++) {
+                String state = UUID.randomUUID() + "," + LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE;
+                if (stateSigner != null) {
+                    state = stateSigner.sign(state);
+                    stateSigner.verify(state);
+                }
+                authorizationUrlTemplate.getUrl(state);
+                OAuthClientRequest.tokenLocation(LinkedInAuthenticatorConstants.LINKEDIN_TOKEN_ENDPOINT)
+                        .setGrantType(GrantType.AUTHORIZATION_CODE).setClientId("warm-up").setClientSecret("warm-up")
+                        .setRedirectURI("https://localhost/commonauth").setCode("warm-up").buildBodyMessage();
+                OAuthClientResponse tokenResponse = OAuthClientResponseFactory.createCustomResponse(
+                        SAMPLE_TOKEN_RESPONSE, "application/json", 200, OAuthJSONAccessTokenResponse.class);
+                tokenResponse.getParam(LinkedInAuthenticatorConstants.ACCESS_TOKEN);
+                final CompactClaimMap.Builder claims = new CompactClaimMap.Builder(8);
+                UserInfoParser.parse(new ByteArrayInputStream(SAMPLE_USER_INFO), SAMPLE_USER_INFO.length,
+                        new UserInfoFieldHandler() {
+                            @Override
+                            public void onField(String name, String value) {
+                                claims.put(ClaimMappingRegistry.LINKEDIN.getClaimMapping(name), value);
+                            }
+                        });
+                claims.build();
+            }
+        } catch (IOException | OAuthSystemException | OAuthProblemException e) {
+            log.warn("Error while warming up the LinkedIn login path", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exposes the {@link LinkedInMetrics} of an identity provider over JMX.
+ */
+public class LinkedInAuthenticatorStats implements LinkedInAuthenticatorStatsMBean {
+
+    private final LinkedInMetrics metrics;
+
+    public LinkedInAuthenticatorStats(LinkedInMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getTenantDomain() {
+        return metrics.getTenantDomain();
+    }
+
+    @Override
+    public String getIdentityProvider() {
+        return metrics.getIdpName();
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return metrics.getSuccessCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return metrics.getFailureCount();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return metrics.getTimeoutCount();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return metrics.getBytesReceived();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return metrics.getCoalescedCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return metrics.getRejectedCount();
+    }
+
+    @Override
+    public long getHedgedCount() {
+        return metrics.getHedgedCount();
+    }
+
+    @Override
+    public long getRetriedCount() {
+        return metrics.getRetriedCount();
+    }
+
+    @Override
+    public Map<String, Long> getFailuresByType() {
+        return metrics.getFailuresByType();
+    }
+
+    @Override
+    public String[] getPhaseLatencies() {
+        LinkedInMetrics.Phase[] phases = LinkedInMetrics.Phase.values();
+        String[] summaries = new String[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            LatencyHistogram histogram = metrics.getHistogram(phases[i]);
+            summaries[i] = String.format(Locale.ENGLISH,
+                    "%s count=%d mean=%.2fms p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms", phases[i],
+                    histogram.getCount(), histogram.getMeanMillis(), histogram.getPercentileMillis(0.5),
+                    histogram.getPercentileMillis(0.99), histogram.getPercentileMillis(0.999),
+                    histogram.getMaxMillis());
+        }
+        return summaries;
+    }
+
+    @Override
+    public double getLatencyPercentile(String phase, double quantile) {
+        return metrics.getHistogram(LinkedInMetrics.Phase.valueOf(phase.toUpperCase(Locale.ENGLISH)))
+                .getPercentileMillis(quantile);
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the LinkedIn login metrics of one identity provider in one tenant.
+ */
+public interface LinkedInAuthenticatorStatsMBean {
+
+    String getTenantDomain();
+
+    String getIdentityProvider();
+
+    long getSuccessCount();
+
+    long getFailureCount();
+
+    long getTimeoutCount();
+
+    long getBytesReceived();
+
+    /**
+     * Get the number of duplicate callbacks which shared the LinkedIn calls of a concurrent callback.
+     *
+     * @return number of coalesced callbacks
+     */
+    long getCoalescedCount();
+
+    /**
+     * Get the number of callbacks rejected by the concurrency limits of the tenant or the identity provider.
+     *
+     * @return number of rejected callbacks
+     */
+    long getRejectedCount();
+
+    /**
+     * Get the number of user info requests sent again because the first request was slower than the hedge delay.
+     *
+     * @return number of hedged requests
+     */
+    long getHedgedCount();
+
+    /**
+     * Get the number of user info requests retried after a transient failure.
+     *
+     * @return number of retried requests
+     */
+    long getRetriedCount();
+
+    /**
+     * Get the failure counts by the type of the root cause.
+     *
+     * @return failure counts
+     */
+    Map<String, Long> getFailuresByType();
+
+    /**
+     * Get a summary line of the latency of each login phase.
+     *
+     * @return latency summaries
+     */
+    String[] getPhaseLatencies();
+
+    /**
+     * Get a latency percentile of a login phase.
+     *
+     * @param phase    the phase, one of REDIRECT, TOKEN_EXCHANGE, USER_INFO, BUILD_CLAIMS, SUBJECT_ASSOCIATION
+     * @param quantile the quantile, from 0 to 1
+     * @return the latency in milliseconds
+     */
+    double getLatencyPercentile(String phase, double quantile);
+
+    /**
+     * Clear all the histograms and counters.
+     */
+    void reset();
+}
@@ -0,0 +1,225 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms and counters of the LinkedIn logins of one identity provider in one tenant.
+ */
+public class LinkedInMetrics {
+
+    /**
+     * The measured phases of a LinkedIn login.
+     */
+    public enum Phase {
+        REDIRECT, TOKEN_EXCHANGE, USER_INFO, BUILD_CLAIMS, SUBJECT_ASSOCIATION
+    }
+
+    private final String tenantDomain;
+    private final String idpName;
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> failuresByType = new ConcurrentHashMap<>();
+
+    public LinkedInMetrics(String tenantDomain, String idpName) {
+        this.tenantDomain = tenantDomain;
+        this.idpName = idpName;
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getIdpName() {
+        return idpName;
+    }
+
+    /**
+     * Record the latency of a phase.
+     *
+     * @param phase the phase
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordLatency(Phase phase, long nanos) {
+        histograms.get(phase).recordNanos(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public void recordSuccess() {
+        successCount.incrementAndGet();
+    }
+
+    /**
+     * Record a failed login. The failure is counted against the type of its root cause, and as a timeout if any
+     * exception in the cause chain is one.
+     *
+     * @param error the failure
+     */
+    public void recordFailure(Throwable error) {
+        failureCount.incrementAndGet();
+        Throwable rootCause = error;
+        boolean timeout = false;
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            rootCause = cause;
+            timeout |= isTimeout(cause);
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        if (timeout) {
+            timeoutCount.incrementAndGet();
+        }
+        String type = rootCause.getClass().getName();
+        AtomicLong counter = failuresByType.get(type);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = failuresByType.putIfAbsent(type, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    public void recordBytesReceived(long bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    /**
+     * Record a callback which shared the outcome of a concurrent duplicate instead of calling LinkedIn.
+     */
+    public void recordCoalesced() {
+        coalescedCount.incrementAndGet();
+    }
+
+    /**
+     * Record a callback which was rejected because its tenant or identity provider had too many callbacks calling
+     * LinkedIn.
+     */
+    public void recordRejected() {
+        rejectedCount.incrementAndGet();
+    }
+
+    /**
+     * Record a user info request which was sent again because the first request was slow.
+     */
+    public void recordHedged() {
+        hedgedCount.incrementAndGet();
+    }
+
+    /**
+     * Record a user info request which was retried after a transient failure.
+     */
+    public void recordRetried() {
+        retriedCount.incrementAndGet();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    /**
+     * Get the failure counts by the type of the root cause.
+     *
+     * @return failure counts sorted by type
+     */
+    public Map<String, Long> getFailuresByType() {
+        Map<String, Long> failures = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : failuresByType.entrySet()) {
+            failures.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Clear all the histograms and counters.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        successCount.set(0);
+        failureCount.set(0);
+        timeoutCount.set(0);
+        bytesReceived.set(0);
+        coalescedCount.set(0);
+        rejectedCount.set(0);
+        hedgedCount.set(0);
+        retriedCount.set(0);
+        failuresByType.clear();
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        return error instanceof SocketTimeoutException || error instanceof ConnectTimeoutException
+               || error instanceof ConnectionPoolTimeoutException || error instanceof TimeoutException;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the {@link LinkedInMetrics} of each identity provider and tenant and registers an MBean for each of them.
+ */
+public class LinkedInMetricsRegistry {
+
+    private static Log log = LogFactory.getLog(LinkedInMetricsRegistry.class);
+
+    private static final String OBJECT_NAME_DOMAIN = "org.wso2.carbon.identity.authenticator.linkedIn";
+
+    private final ConcurrentHashMap<String, LinkedInMetrics> metrics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ObjectName> objectNames = new ConcurrentHashMap<>();
+    private final MBeanServer mBeanServer;
+    private final LoginFlowRecorder flowRecorder;
+    private ObjectName flowRecorderName;
+
+    public LinkedInMetricsRegistry(LoginFlowRecorder flowRecorder) {
+        this(ManagementFactory.getPlatformMBeanServer(), flowRecorder);
+    }
+
+    public LinkedInMetricsRegistry(MBeanServer mBeanServer, LoginFlowRecorder flowRecorder) {
+        this.mBeanServer = mBeanServer;
+        this.flowRecorder = flowRecorder;
+        try {
+            flowRecorderName = new ObjectName(OBJECT_NAME_DOMAIN + ":type=LoginFlowRecorder");
+            mBeanServer.registerMBean(flowRecorder, flowRecorderName);
+        } catch (JMException e) {
+            flowRecorderName = null;
+            log.warn("Error while registering the LinkedIn login flow recorder MBean", e);
+        }
+    }
+
+    public LoginFlowRecorder getFlowRecorder() {
+        return flowRecorder;
+    }
+
+    /**
+     * Get the metrics of an identity provider, registering its MBean on first use.
+     *
+     * @param tenantDomain the tenant domain
+     * @param idpName      the identity provider name
+     * @return the metrics
+     */
+    public LinkedInMetrics getMetrics(String tenantDomain, String idpName) {
+        String key = tenantDomain + "/" + idpName;
+        LinkedInMetrics idpMetrics = metrics.get(key);
+        if (idpMetrics != null) {
+            return idpMetrics;
+        }
+        LinkedInMetrics newMetrics = new LinkedInMetrics(tenantDomain, idpName);
+        idpMetrics = metrics.putIfAbsent(key, newMetrics);
+        if (idpMetrics != null) {
+            return idpMetrics;
+        }
+        register(key, newMetrics);
+        return newMetrics;
+    }
+
+    /**
+     * Unregister all the MBeans.
+     */
+    public void close() {
+        for (ObjectName objectName : objectNames.values()) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                log.warn("Error while unregistering the MBean: " + objectName, e);
+            }
+        }
+        objectNames.clear();
+        metrics.clear();
+        if (flowRecorderName != null) {
+            try {
+                mBeanServer.unregisterMBean(flowRecorderName);
+            } catch (JMException e) {
+                log.warn("Error while unregistering the MBean: " + flowRecorderName, e);
+            }
+            flowRecorderName = null;
+        }
+        flowRecorder.clear();
+    }
+
+    private void register(String key, LinkedInMetrics idpMetrics) {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME_DOMAIN + ":type=LinkedInAuthenticator,tenant=" +
+                                                   ObjectName.quote(String.valueOf(idpMetrics.getTenantDomain())) +
+                                                   ",idp=" + ObjectName.quote(String.valueOf(idpMetrics.getIdpName())));
+            mBeanServer.registerMBean(new LinkedInAuthenticatorStats(idpMetrics), objectName);
+            objectNames.put(key, objectName);
+        } catch (JMException e) {
+            log.warn("Error while registering the LinkedIn authenticator MBean for " + key, e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+/**
+ * Measurements of one LinkedIn login request. They are added to the metrics of the identity provider and, while the
+ * {@link LoginFlowRecorder} is enabled, also kept for the summary of the login.
+ */
+public class LoginFlow {
+
+    private final LinkedInMetrics metrics;
+    private final LoginFlowRecorder recorder;
+    private final long startTime;
+    private final long startNanos;
+    private final long[] phaseNanos;
+    // volatile as a forked call may be joined while it is still running after an abort
+    private volatile long bytesReceived;
+    private boolean profileCached;
+    private boolean coalesced;
+    private boolean rejected;
+
+    private LoginFlow(LinkedInMetrics metrics, LoginFlowRecorder recorder) {
+        this.metrics = metrics;
+        this.recorder = recorder;
+        if (recorder != null) {
+            startTime = System.currentTimeMillis();
+            startNanos = System.nanoTime();
+            phaseNanos = new long[LinkedInMetrics.Phase.values().length];
+        } else {
+            startTime = 0;
+            startNanos = 0;
+            phaseNanos = null;
+        }
+    }
+
+    /**
+     * Start the measurements of a login request.
+     *
+     * @param metrics  the metrics of the identity provider
+     * @param recorder the flow recorder, or null if the login is not recorded
+     * @return the login flow
+     */
+    public static LoginFlow start(LinkedInMetrics metrics, LoginFlowRecorder recorder) {
+        return new LoginFlow(metrics, recorder != null && recorder.isEnabled() ? recorder : null);
+    }
+
+    /**
+     * Start the measurements of a LinkedIn call which runs on another thread during this login. They are added to
+     * the metrics right away and to the summary of this login once the call is joined.
+     *
+     * @return the login flow of the call
+     */
+    public LoginFlow fork() {
+        return new LoginFlow(metrics, null);
+    }
+
+    /**
+     * Add the measurements of a call started by {@link #fork()} to the summary of this login. A call which was
+     * aborted and may still be running adds what it has received so far.
+     *
+     * @param fork the login flow of the call
+     */
+    public void join(LoginFlow fork) {
+        bytesReceived += fork.bytesReceived;
+    }
+
+    public LinkedInMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Record the latency of a phase.
+     *
+     * @param phase the phase
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordLatency(LinkedInMetrics.Phase phase, long nanos) {
+        metrics.recordLatency(phase, nanos);
+        if (phaseNanos != null) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+    }
+
+    public void recordBytesReceived(long bytes) {
+        metrics.recordBytesReceived(bytes);
+        bytesReceived += bytes;
+    }
+
+    public void recordCoalesced() {
+        metrics.recordCoalesced();
+        coalesced = true;
+    }
+
+    public void recordRejected() {
+        metrics.recordRejected();
+        rejected = true;
+    }
+
+    public void recordHedged() {
+        metrics.recordHedged();
+    }
+
+    public void recordRetried() {
+        metrics.recordRetried();
+    }
+
+    /**
+     * Record that the claims were served from the profile cache.
+     */
+    public void recordProfileCached() {
+        profileCached = true;
+    }
+
+    /**
+     * Complete a successful login.
+     */
+    public void recordSuccess() {
+        metrics.recordSuccess();
+        complete(null);
+    }
+
+    /**
+     * Complete a failed login.
+     *
+     * @param error the failure
+     */
+    public void recordFailure(Throwable error) {
+        metrics.recordFailure(error);
+        complete(error);
+    }
+
+    /**
+     * Complete a login request which does not count as a login, such as the redirect to LinkedIn.
+     *
+     * @param error the failure, or null if the request succeeded
+     */
+    public void complete(Throwable error) {
+        if (recorder == null) {
+            return;
+        }
+        String outcome = LoginFlowSummary.SUCCESS;
+        if (error != null) {
+            Throwable rootCause = error;
+            while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+                rootCause = rootCause.getCause();
+            }
+            outcome = rootCause.getClass().getName();
+        }
+        recorder.record(new LoginFlowSummary(startTime, System.nanoTime() - startNanos, metrics.getTenantDomain(),
+                metrics.getIdpName(), outcome, phaseNanos.clone(), bytesReceived, profileCached, coalesced,
+                rejected));
+    }
+}
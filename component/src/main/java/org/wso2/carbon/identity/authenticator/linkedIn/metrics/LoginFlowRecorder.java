@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the summaries of the last LinkedIn login requests in a fixed size ring buffer, so that latency outliers can
+ * be examined without debug logs. While disabled a login only pays for reading a volatile flag.
+ */
+public class LoginFlowRecorder implements LoginFlowRecorderMBean {
+
+    private final AtomicReferenceArray<LoginFlowSummary> summaries;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean enabled;
+
+    public LoginFlowRecorder(int capacity, boolean enabled) {
+        summaries = new AtomicReferenceArray<>(Math.max(1, capacity));
+        this.enabled = enabled;
+    }
+
+    /**
+     * Create the flow recorder from the authenticator parameters.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return flow recorder
+     */
+    public static LoginFlowRecorder fromParameters(Map<String, String> parameters) {
+        return new LoginFlowRecorder(
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.FLOW_RECORDER_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_FLOW_RECORDER_SIZE),
+                LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                        LinkedInAuthenticatorConstants.FLOW_RECORDER_ENABLED, false));
+    }
+
+    /**
+     * Keep the summary of a login request, replacing the oldest summary once the buffer is full.
+     *
+     * @param summary the summary
+     */
+    public void record(LoginFlowSummary summary) {
+        if (!enabled) {
+            return;
+        }
+        summaries.set((int) (sequence.getAndIncrement() % summaries.length()), summary);
+    }
+
+    /**
+     * Get the recorded summaries.
+     *
+     * @return the summaries, oldest first
+     */
+    public List<LoginFlowSummary> getSummaries() {
+        int capacity = summaries.length();
+        long end = sequence.get();
+        long start = Math.max(0, end - capacity);
+        List<LoginFlowSummary> recorded = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            LoginFlowSummary summary = summaries.get((int) (i % capacity));
+            if (summary != null) {
+                recorded.add(summary);
+            }
+        }
+        return recorded;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getCapacity() {
+        return summaries.length();
+    }
+
+    @Override
+    public String[] getFlows() {
+        List<LoginFlowSummary> recorded = getSummaries();
+        String[] flows = new String[recorded.size()];
+        for (int i = 0; i < flows.length; i++) {
+            flows[i] = recorded.get(i).toString();
+        }
+        return flows;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < summaries.length(); i++) {
+            summaries.set(i, null);
+        }
+    }
+}
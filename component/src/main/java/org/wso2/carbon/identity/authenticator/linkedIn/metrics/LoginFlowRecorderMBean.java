@@ -0,0 +1,49 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+/**
+ * JMX view of the {@link LoginFlowRecorder}.
+ */
+public interface LoginFlowRecorderMBean {
+
+    boolean isEnabled();
+
+    /**
+     * Start or stop recording the summaries of the LinkedIn login requests.
+     *
+     * @param enabled true to record
+     */
+    void setEnabled(boolean enabled);
+
+    int getCapacity();
+
+    /**
+     * Get the summaries of the most recent LinkedIn login requests, oldest first.
+     *
+     * @return the summaries
+     */
+    String[] getFlows();
+
+    /**
+     * Remove all the recorded summaries.
+     */
+    void clear();
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redacted summary of one LinkedIn login request. It holds the timings, sizes and outcome of the request, but no
+ * codes, tokens, claims or exception messages.
+ */
+public class LoginFlowSummary {
+
+    /**
+     * Outcome of a successful request.
+     */
+    public static final String SUCCESS = "SUCCESS";
+
+    private final long startTime;
+    private final long durationNanos;
+    private final String tenantDomain;
+    private final String idpName;
+    private final String outcome;
+    private final long[] phaseNanos;
+    private final long bytesReceived;
+    private final boolean profileCached;
+    private final boolean coalesced;
+    private final boolean rejected;
+
+    public LoginFlowSummary(long startTime, long durationNanos, String tenantDomain, String idpName, String outcome,
+                            long[] phaseNanos, long bytesReceived, boolean profileCached, boolean coalesced,
+                            boolean rejected) {
+        this.startTime = startTime;
+        this.durationNanos = durationNanos;
+        this.tenantDomain = tenantDomain;
+        this.idpName = idpName;
+        this.outcome = outcome;
+        this.phaseNanos = phaseNanos;
+        this.bytesReceived = bytesReceived;
+        this.profileCached = profileCached;
+        this.coalesced = coalesced;
+        this.rejected = rejected;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getIdpName() {
+        return idpName;
+    }
+
+    /**
+     * Get the outcome of the request.
+     *
+     * @return {@link #SUCCESS}, or the type of the root cause of the failure
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Get the time spent in a phase.
+     *
+     * @param phase the phase
+     * @return the time in nanoseconds, 0 if the request did not reach the phase
+     */
+    public long getPhaseNanos(LinkedInMetrics.Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public boolean isProfileCached() {
+        return profileCached;
+    }
+
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(256);
+        summary.append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.ENGLISH).format(new Date(startTime)))
+                .append(" tenant=").append(tenantDomain).append(" idp=").append(idpName)
+                .append(" outcome=").append(outcome)
+                .append(String.format(Locale.ENGLISH, " total=%.2fms", toMillis(durationNanos)));
+        for (LinkedInMetrics.Phase phase : LinkedInMetrics.Phase.values()) {
+            if (phaseNanos[phase.ordinal()] > 0) {
+                summary.append(' ').append(phase).append('=')
+                        .append(String.format(Locale.ENGLISH, "%.2fms", toMillis(phaseNanos[phase.ordinal()])));
+            }
+        }
+        summary.append(" bytes=").append(bytesReceived);
+        if (profileCached) {
+            summary.append(" cached");
+        }
+        if (coalesced) {
+            summary.append(" coalesced");
+        }
+        if (rejected) {
+            summary.append(" rejected");
+        }
+        return summary.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
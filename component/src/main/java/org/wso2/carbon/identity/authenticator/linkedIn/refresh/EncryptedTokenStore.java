@@ -0,0 +1,190 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.refresh;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.ProfileKey;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Size bounded in-memory store of the LinkedIn access tokens of the cached members, used to refresh their profiles
+ * outside the login path. The tokens are encrypted with a key generated when the store is created, which is never
+ * persisted, so the stored tokens are unusable once the store is discarded. Tokens are stored against the same
+ * {@link ProfileKey} as the cached profiles, so a token is only used for the identity provider it was issued for.
+ */
+public class EncryptedTokenStore {
+
+    private static final String KEY_ALGORITHM = "AES";
+    private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final int KEY_SIZE = 128;
+    private static final int IV_LENGTH = 16;
+
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<ProfileKey, StoredToken> tokens;
+
+    public EncryptedTokenStore(final int maxEntries) {
+        try {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(KEY_ALGORITHM);
+            keyGenerator.init(KEY_SIZE, random);
+            key = keyGenerator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES is not supported by the JVM", e);
+        }
+        tokens = new LinkedHashMap<ProfileKey, StoredToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProfileKey, StoredToken> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Store the access token of a member.
+     *
+     * @param profileKey  the member id and the profile cache scope of the identity provider
+     * @param accessToken the access token
+     * @param expiryTime  the time in milliseconds the token expires at
+     * @param userInfoUrl     the user info endpoint of the identity provider the token was issued for
+     * @param emailAddressUrl the v2 email address endpoint of the identity provider, or null for the v1 API
+     */
+    public void put(ProfileKey profileKey, String accessToken, long expiryTime, String userInfoUrl,
+                    String emailAddressUrl) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        byte[] encryptedToken;
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+            encryptedToken = cipher.doFinal(accessToken.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while encrypting the access token", e);
+        }
+        StoredToken storedToken = new StoredToken(iv, encryptedToken, expiryTime, userInfoUrl,
+                                                  emailAddressUrl);
+        synchronized (tokens) {
+            tokens.put(profileKey, storedToken);
+        }
+    }
+
+    /**
+     * Get the stored token of a member, removing it if it has expired.
+     *
+     * @param profileKey the member id and the profile cache scope of the identity provider
+     * @return the stored token, or null if there is no unexpired token
+     */
+    public StoredToken get(ProfileKey profileKey) {
+        synchronized (tokens) {
+            StoredToken storedToken = tokens.get(profileKey);
+            if (storedToken != null && storedToken.isExpired(System.currentTimeMillis())) {
+                tokens.remove(profileKey);
+                return null;
+            }
+            return storedToken;
+        }
+    }
+
+    /**
+     * Remove the stored token of a member.
+     *
+     * @param profileKey the member id and the profile cache scope of the identity provider
+     */
+    public void remove(ProfileKey profileKey) {
+        synchronized (tokens) {
+            tokens.remove(profileKey);
+        }
+    }
+
+    public int size() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    /**
+     * Remove all the stored tokens.
+     */
+    public void clear() {
+        synchronized (tokens) {
+            tokens.clear();
+        }
+    }
+
+    /**
+     * Decrypt a stored access token.
+     *
+     * @param storedToken the stored token
+     * @return the access token
+     */
+    public String decrypt(StoredToken storedToken) {
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(storedToken.iv));
+            return new String(cipher.doFinal(storedToken.encryptedToken), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while decrypting the access token", e);
+        }
+    }
+
+    /**
+     * An encrypted access token and the endpoint it is used with.
+     */
+    public static class StoredToken {
+
+        private final byte[] iv;
+        private final byte[] encryptedToken;
+        private final long expiryTime;
+        private final String userInfoUrl;
+        private final String emailAddressUrl;
+
+        private StoredToken(byte[] iv, byte[] encryptedToken, long expiryTime, String userInfoUrl,
+                            String emailAddressUrl) {
+            this.iv = iv;
+            this.encryptedToken = encryptedToken;
+            this.expiryTime = expiryTime;
+            this.userInfoUrl = userInfoUrl;
+            this.emailAddressUrl = emailAddressUrl;
+        }
+
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+
+        public String getUserInfoUrl() {
+            return userInfoUrl;
+        }
+
+        public String getEmailAddressUrl() {
+            return emailAddressUrl;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiryTime;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.refresh;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.LinkedInProfileCache;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.ProfileKey;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInUserInfoClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the cached LinkedIn profiles of returning members outside the login path. The access token of each
+ * cached member is kept in an {@link EncryptedTokenStore} until it expires, and a scheduled run refreshes the
+ * profiles which have reached the configured age and have been read by a login since their last refresh, in rate
+ * limited batches, so returning members keep finding recent claims in the {@link LinkedInProfileCache} instead of
+ * calling LinkedIn. A refresh never extends the time a profile is cached for.
+ */
+public class ProfileRefresher {
+
+    private static Log log = LogFactory.getLog(ProfileRefresher.class);
+
+    private final LinkedInProfileCache profileCache;
+    private final LinkedInHttpTransport transport;
+    private final EncryptedTokenStore tokenStore;
+    private final long refreshAfter;
+    private final int batchSize;
+    private final long submitInterval;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor workers;
+    private final LinkedInMetrics metrics = new LinkedInMetrics(null, null);
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    public ProfileRefresher(LinkedInProfileCache profileCache, LinkedInHttpTransport transport,
+                            EncryptedTokenStore tokenStore, long refreshAfter, long refreshInterval, int batchSize,
+                            int refreshRate, int poolSize) {
+        this.profileCache = profileCache;
+        this.transport = transport;
+        this.tokenStore = tokenStore;
+        this.refreshAfter = refreshAfter;
+        this.batchSize = batchSize;
+        this.submitInterval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, refreshRate);
+        final AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                                         new ArrayBlockingQueue<Runnable>(Math.max(1, batchSize)),
+                                         new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "linkedin-profile-refresh-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+        workers.allowCoreThreadTimeOut(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "linkedin-profile-refresh-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refreshStaleProfiles();
+            }
+        }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create the profile refresher when it is enabled.
+     *
+     * @param parameters   authenticator parameters of application-authentication.xml
+     * @param profileCache the profile cache the refreshed profiles are stored in
+     * @param transport    the transport the user info requests are sent through
+     * @return the profile refresher, or null when it is disabled or the profile cache is disabled
+     */
+    public static ProfileRefresher fromParameters(Map<String, String> parameters, LinkedInProfileCache profileCache,
+                                                  LinkedInHttpTransport transport) {
+        if (profileCache == null || !LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                LinkedInAuthenticatorConstants.PROFILE_REFRESH_ENABLED, false)) {
+            return null;
+        }
+        return new ProfileRefresher(profileCache, transport,
+                new EncryptedTokenStore(LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.TOKEN_STORE_MAX_ENTRIES,
+                        LinkedInAuthenticatorConstants.DEFAULT_TOKEN_STORE_MAX_ENTRIES)),
+                TimeUnit.SECONDS.toMillis(LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_REFRESH_AFTER,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_REFRESH_AFTER)),
+                TimeUnit.SECONDS.toMillis(LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_REFRESH_INTERVAL,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_REFRESH_INTERVAL)),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_REFRESH_BATCH_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_REFRESH_BATCH_SIZE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_REFRESH_RATE,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_REFRESH_RATE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.PROFILE_REFRESH_POOL_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_PROFILE_REFRESH_POOL_SIZE));
+    }
+
+    /**
+     * Keep the access token of a member to refresh the member's profile with until the token expires.
+     *
+     * @param profileKey  the member id and the profile cache scope of the identity provider
+     * @param accessToken the access token
+     * @param expiresIn   the lifetime in seconds of the token, from the token response
+     * @param userInfoUrl     the user info endpoint of the identity provider
+     * @param emailAddressUrl the v2 email address endpoint of the identity provider, or null for the v1 API
+     */
+    public void storeToken(ProfileKey profileKey, String accessToken, String expiresIn, String userInfoUrl,
+                           String emailAddressUrl) {
+        long lifetime;
+        try {
+            lifetime = Long.parseLong(expiresIn);
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("The token response has no valid expires_in. The profile of " + profileKey.getMemberId() +
+                          " is not refreshed");
+            }
+            return;
+        }
+        tokenStore.put(profileKey, accessToken, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(lifetime),
+                       userInfoUrl, emailAddressUrl);
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public int getStoredTokenCount() {
+        return tokenStore.size();
+    }
+
+    /**
+     * Stop refreshing and discard the stored tokens.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        tokenStore.clear();
+        if (log.isDebugEnabled()) {
+            log.debug("LinkedIn profile refresher is shut down");
+        }
+    }
+
+    private void refreshStaleProfiles() {
+        try {
+            List<ProfileKey> profileKeys = profileCache.getStaleProfiles(refreshAfter, batchSize);
+            for (final ProfileKey profileKey : profileKeys) {
+                final EncryptedTokenStore.StoredToken storedToken = tokenStore.get(profileKey);
+                if (storedToken == null) {
+                    continue;
+                }
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refreshProfile(profileKey, storedToken);
+                    }
+                });
+                // spread the batch so that no more than the configured number of profiles are refreshed per second
+                TimeUnit.NANOSECONDS.sleep(submitInterval);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Profile refresh workers are busy. Skipping the rest of the batch");
+            }
+        } catch (RuntimeException e) {
+            log.error("Error while refreshing the LinkedIn profiles", e);
+        }
+    }
+
+    private void refreshProfile(ProfileKey profileKey, EncryptedTokenStore.StoredToken storedToken) {
+        String memberId = profileKey.getMemberId();
+        try {
+            LinkedInUserInfoClient userInfoClient = transport.getUserInfoClient();
+            String accessToken = tokenStore.decrypt(storedToken);
+            LoginFlow flow = LoginFlow.start(metrics, null);
+            CompactClaimMap claims = storedToken.getEmailAddressUrl() == null ?
+                                     userInfoClient.fetchClaims(storedToken.getUserInfoUrl(), accessToken, flow) :
+                                     userInfoClient.fetchClaimsV2(storedToken.getUserInfoUrl(),
+                                                                  storedToken.getEmailAddressUrl(), accessToken, flow);
+            String fetchedMemberId = claims.get(ClaimMappingRegistry.LINKEDIN
+                                                        .getClaimMapping(LinkedInAuthenticatorConstants.USER_ID));
+            if (!memberId.equals(fetchedMemberId)) {
+                tokenStore.remove(profileKey);
+                failureCount.incrementAndGet();
+                return;
+            }
+            if (profileCache.refresh(profileKey, claims)) {
+                refreshCount.incrementAndGet();
+            } else {
+                // the profile expired or was evicted while it was refreshed
+                tokenStore.remove(profileKey);
+            }
+        } catch (ApplicationAuthenticatorException | RuntimeException e) {
+            failureCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Error while refreshing the LinkedIn profile of " + memberId, e);
+            }
+        }
+    }
+}
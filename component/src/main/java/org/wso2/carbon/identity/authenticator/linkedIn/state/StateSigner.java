@@ -0,0 +1,166 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.state;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs the state parameter of the LinkedIn authorization request, so that callbacks with a forged or expired state
+ * can be rejected before any session lookup or LinkedIn call. The signed state is the state followed by its expiry
+ * time and an HMAC of both: {@code <state>,<expiry>.<signature>}.
+ */
+public class StateSigner {
+
+    private static Log log = LogFactory.getLog(StateSigner.class);
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 16;
+    private static final int MAX_STATE_LENGTH = 512;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final SecretKeySpec key;
+    private final Mac prototypeMac;
+    private final long validity;
+
+    /**
+     * Create the state signer.
+     *
+     * @param key      the signing key
+     * @param validity the time in milliseconds a signed state is accepted
+     */
+    public StateSigner(byte[] key, long validity) {
+        this.key = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.validity = validity;
+        try {
+            prototypeMac = Mac.getInstance(MAC_ALGORITHM);
+            prototypeMac.init(this.key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * Create the state signer from the authenticator parameters. The signing key must be configured, as a key
+     * generated on one node would reject the callbacks of the logins redirected by the other nodes of a cluster.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return the state signer, or null when no signing key is configured and LinkedIn logins must be rejected
+     */
+    public static StateSigner fromParameters(Map<String, String> parameters) {
+        String configuredKey = parameters.get(LinkedInAuthenticatorConstants.STATE_SIGNING_KEY);
+        if (StringUtils.isBlank(configuredKey)) {
+            log.warn("No " + LinkedInAuthenticatorConstants.STATE_SIGNING_KEY + " is configured for the LinkedIn " +
+                     "authenticator. LinkedIn logins are rejected until the same key is configured on every node");
+            return null;
+        }
+        byte[] key = configuredKey.trim().getBytes(StandardCharsets.UTF_8);
+        return new StateSigner(key, LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                LinkedInAuthenticatorConstants.STATE_VALIDITY,
+                LinkedInAuthenticatorConstants.DEFAULT_STATE_VALIDITY) * 1000L);
+    }
+
+    /**
+     * Sign a state.
+     *
+     * @param state the state
+     * @return the signed state
+     */
+    public String sign(String state) {
+        long expiry = (System.currentTimeMillis() + validity) / 1000;
+        String payload = state + "," + Long.toString(expiry, Character.MAX_RADIX);
+        byte[] signature = mac(payload);
+        StringBuilder signedState = new StringBuilder(payload.length() + 1 + SIGNATURE_LENGTH * 2);
+        signedState.append(payload).append('.');
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            signedState.append(HEX_DIGITS[(signature[i] >> 4) & 0xf]).append(HEX_DIGITS[signature[i] & 0xf]);
+        }
+        return signedState.toString();
+    }
+
+    /**
+     * Check whether a state was signed by this signer and has not expired. The length and layout of the state are
+     * checked before the signature is computed, and the signature is compared in constant time.
+     *
+     * @param signedState the signed state of a callback
+     * @return true if the state is valid
+     */
+    public boolean verify(String signedState) {
+        if (signedState == null || signedState.length() > MAX_STATE_LENGTH) {
+            return false;
+        }
+        int signatureStart = signedState.length() - SIGNATURE_LENGTH * 2;
+        if (signatureStart < 1 || signedState.charAt(signatureStart - 1) != '.') {
+            return false;
+        }
+        String payload = signedState.substring(0, signatureStart - 1);
+        int expiryStart = payload.lastIndexOf(',');
+        if (expiryStart < 0) {
+            return false;
+        }
+        long expiry;
+        try {
+            expiry = Long.parseLong(payload.substring(expiryStart + 1), Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (expiry * 1000 < System.currentTimeMillis()) {
+            return false;
+        }
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            int high = Character.digit(signedState.charAt(signatureStart + i * 2), 16);
+            int low = Character.digit(signedState.charAt(signatureStart + i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            signature[i] = (byte) ((high << 4) | low);
+        }
+        byte[] expectedSignature = new byte[SIGNATURE_LENGTH];
+        System.arraycopy(mac(payload), 0, expectedSignature, 0, SIGNATURE_LENGTH);
+        return MessageDigest.isEqual(expectedSignature, signature);
+    }
+
+    private byte[] mac(String payload) {
+        Mac mac;
+        try {
+            // cloning the initialized prototype avoids the provider lookup of Mac.getInstance on every callback
+            mac = (Mac) prototypeMac.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Error while signing the LinkedIn state", ex);
+            }
+        }
+        return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import java.util.Arrays;
+
+/**
+ * Timeout of a LinkedIn endpoint which follows its observed latency. The timeout is a multiple of the p99 latency of
+ * the recent calls, bounded by a configured minimum and by the configured connect and read timeouts. Until enough
+ * calls have been observed the maximum is used.
+ */
+public class AdaptiveTimeout {
+
+    private static final int SAMPLE_SIZE = 256;
+    private static final int MINIMUM_SAMPLES = 20;
+    private static final int UPDATE_INTERVAL = 16;
+    private static final double PERCENTILE = 0.99;
+
+    private final int minTimeout;
+    private final int maxTimeout;
+    private final int multiplier;
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int position;
+    private int count;
+    private int sinceUpdate;
+    private volatile int timeout;
+
+    public AdaptiveTimeout(int minTimeout, int maxTimeout, int multiplier) {
+        this.maxTimeout = maxTimeout;
+        this.minTimeout = Math.min(minTimeout, maxTimeout);
+        this.multiplier = Math.max(1, multiplier);
+        this.timeout = maxTimeout;
+    }
+
+    /**
+     * Get the current timeout.
+     *
+     * @return timeout in milliseconds
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Record the latency of a completed call.
+     *
+     * @param latencyMillis the latency in milliseconds
+     */
+    public synchronized void recordLatency(long latencyMillis) {
+        samples[position] = latencyMillis;
+        position = (position + 1) % SAMPLE_SIZE;
+        if (count < SAMPLE_SIZE) {
+            count++;
+        }
+        if (++sinceUpdate >= UPDATE_INTERVAL && count >= MINIMUM_SAMPLES) {
+            sinceUpdate = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            long percentile = sorted[(int) Math.ceil(PERCENTILE * count) - 1];
+            timeout = (int) Math.max(minTimeout, Math.min(maxTimeout, percentile * multiplier));
+        }
+    }
+
+    /**
+     * Record a call which timed out. Its latency is recorded as the timeout, which lets the timeout grow back
+     * towards the maximum when LinkedIn slows down.
+     */
+    public void recordTimeout() {
+        recordLatency(timeout);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent calls. A call which finds all the permits taken waits for one in a short bounded
+ * queue; once the queue is full further calls are rejected immediately.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final int maxWaitingCalls;
+    private final Semaphore permits;
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public Bulkhead(int maxConcurrentCalls, int maxWaitingCalls) {
+        this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+        this.maxWaitingCalls = Math.max(0, maxWaitingCalls);
+        permits = new Semaphore(this.maxConcurrentCalls, true);
+    }
+
+    /**
+     * Acquire a permit, waiting for one at most the given time if a place in the queue is free.
+     *
+     * @param maxWait the maximum wait in milliseconds
+     * @return true if a permit is acquired, false if the call is rejected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean tryAcquire(long maxWait) throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (maxWait > 0) {
+            if (waitingCalls.incrementAndGet() <= maxWaitingCalls) {
+                try {
+                    if (permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } finally {
+                    waitingCalls.decrementAndGet();
+                }
+            } else {
+                waitingCalls.decrementAndGet();
+            }
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Release a permit acquired with {@link #tryAcquire(long)}.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Check whether the bulkhead has the given limits.
+     *
+     * @param maxConcurrentCalls the maximum number of concurrent calls
+     * @param maxWaitingCalls    the maximum number of waiting calls
+     * @return true if the limits are the same
+     */
+    public boolean hasLimits(int maxConcurrentCalls, int maxWaitingCalls) {
+        return this.maxConcurrentCalls == Math.max(1, maxConcurrentCalls)
+               && this.maxWaitingCalls == Math.max(0, maxWaitingCalls);
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public int getWaitingCalls() {
+        return waitingCalls.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of a LinkedIn endpoint. The circuit opens when the failure rate or the slow call rate of the
+ * recent calls reaches its threshold, after which calls fail fast until the open duration has passed. A limited
+ * number of probe calls are then let through, which close the circuit again if they succeed.
+ */
+public class CircuitBreaker {
+
+    private static Log log = LogFactory.getLog(CircuitBreaker.class);
+
+    /**
+     * State of the circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final byte[] outcomes;
+    private int position;
+    private int calls;
+    private int failedCalls;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesPermitted;
+    private int probesCompleted;
+    private int probesFailed;
+    private int probesSlow;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this.name = name;
+        this.config = config;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDuration());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDuration());
+        this.outcomes = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * Ask for permission to call the endpoint.
+     *
+     * @return false if the circuit is open and the call must fail fast
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesPermitted >= config.getHalfOpenCalls()) {
+                return false;
+            }
+            probesPermitted++;
+        }
+        return true;
+    }
+
+    /**
+     * Record a successful call.
+     *
+     * @param durationNanos the duration of the call
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /**
+     * Record a failed call.
+     *
+     * @param durationNanos the duration of the call
+     */
+    public synchronized void onFailure(long durationNanos) {
+        record((byte) (FAILED | (durationNanos >= slowCallNanos ? SLOW : 0)));
+    }
+
+    /**
+     * Release the permission of a call which was aborted before it had an outcome, such as a hedged call which lost
+     * the race, so that it does not hold a probe of the half open circuit.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesPermitted > probesCompleted) {
+            probesPermitted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(byte outcome) {
+        if (state == State.HALF_OPEN) {
+            probesCompleted++;
+            probesFailed += outcome & FAILED;
+            probesSlow += (outcome & SLOW) >> 1;
+            if (probesCompleted >= config.getHalfOpenCalls()) {
+                transitionTo(exceedsThresholds(probesFailed, probesSlow, probesCompleted) ?
+                             State.OPEN : State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // a call which started before the circuit opened
+            return;
+        }
+        if (calls == outcomes.length) {
+            byte evicted = outcomes[position];
+            failedCalls -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[position] = outcome;
+        failedCalls += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        position = (position + 1) % outcomes.length;
+        if (calls >= config.getMinimumCalls() && exceedsThresholds(failedCalls, slowCalls, calls)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private boolean exceedsThresholds(int failed, int slow, int total) {
+        return failed * 100 >= config.getFailureRateThreshold() * total ||
+               slow * 100 >= config.getSlowCallRateThreshold() * total;
+    }
+
+    private void transitionTo(State newState) {
+        if (newState == State.OPEN) {
+            log.warn("Opening the circuit of the LinkedIn " + name + " endpoint. Calls fail fast for " +
+                     config.getOpenDuration() + " ms");
+            openedAt = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            log.info("Closing the circuit of the LinkedIn " + name + " endpoint");
+        } else if (log.isDebugEnabled()) {
+            log.debug("Probing the LinkedIn " + name + " endpoint with " + config.getHalfOpenCalls() + " calls");
+        }
+        state = newState;
+        probesPermitted = 0;
+        probesCompleted = 0;
+        probesFailed = 0;
+        probesSlow = 0;
+        position = 0;
+        calls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+}
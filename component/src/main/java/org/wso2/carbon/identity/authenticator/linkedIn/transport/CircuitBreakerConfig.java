@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.Map;
+
+/**
+ * Thresholds of the {@link CircuitBreaker} of each LinkedIn endpoint.
+ */
+public class CircuitBreakerConfig {
+
+    private final boolean enabled;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final int slowCallDuration;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int openDuration;
+    private final int halfOpenCalls;
+
+    public CircuitBreakerConfig(boolean enabled, int failureRateThreshold, int slowCallRateThreshold,
+                                int slowCallDuration, int windowSize, int minimumCalls, int openDuration,
+                                int halfOpenCalls) {
+        this.enabled = enabled;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * Build the circuit breaker configuration from the authenticator parameters.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return circuit breaker configuration
+     */
+    public static CircuitBreakerConfig fromParameters(Map<String, String> parameters) {
+        return new CircuitBreakerConfig(
+                LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_ENABLED, true),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_SLOW_CALL_DURATION,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_WINDOW_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_MINIMUM_CALLS,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_OPEN_DURATION,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_HALF_OPEN_CALLS,
+                        LinkedInAuthenticatorConstants.DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_CALLS));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public int getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public int getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.Map;
+
+/**
+ * Hedging and retry settings of the user info requests, run by the {@link HedgedRequestExecutor}.
+ */
+public class HedgedRequestConfig {
+
+    private final boolean hedgingEnabled;
+    private final int hedgeDelay;
+    private final int hedgeMinDelay;
+    private final int maxRetries;
+    private final int retryBackoff;
+    private final int deadline;
+
+    public HedgedRequestConfig(boolean hedgingEnabled, int hedgeDelay, int hedgeMinDelay, int maxRetries,
+                               int retryBackoff, int deadline) {
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgeDelay = Math.max(0, hedgeDelay);
+        this.hedgeMinDelay = Math.max(0, hedgeMinDelay);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = Math.max(1, retryBackoff);
+        this.deadline = Math.max(1, deadline);
+    }
+
+    /**
+     * Build the hedging and retry configuration from the authenticator parameters.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return hedging and retry configuration
+     */
+    public static HedgedRequestConfig fromParameters(Map<String, String> parameters) {
+        return new HedgedRequestConfig(
+                LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_HEDGING_ENABLED, false),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_HEDGE_DELAY, 0),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_HEDGE_MIN_DELAY,
+                        LinkedInAuthenticatorConstants.DEFAULT_USER_INFO_HEDGE_MIN_DELAY),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_MAX_RETRIES, 0),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_RETRY_BACKOFF,
+                        LinkedInAuthenticatorConstants.DEFAULT_USER_INFO_RETRY_BACKOFF),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_DEADLINE,
+                        LinkedInAuthenticatorConstants.DEFAULT_USER_INFO_DEADLINE));
+    }
+
+    /**
+     * Check whether the user info requests are hedged or retried at all.
+     *
+     * @return true if hedging is enabled or retries are allowed
+     */
+    public boolean isEnabled() {
+        return hedgingEnabled || maxRetries > 0;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    /**
+     * Get the fixed delay before a hedged request.
+     *
+     * @return delay in milliseconds, or 0 if the delay follows the p95 latency
+     */
+    public int getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    public int getHedgeMinDelay() {
+        return hedgeMinDelay;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public int getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public int getDeadline() {
+        return deadline;
+    }
+}
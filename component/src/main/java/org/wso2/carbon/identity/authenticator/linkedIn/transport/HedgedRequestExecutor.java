@@ -0,0 +1,306 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LatencyHistogram;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends an idempotent LinkedIn request with hedging and retries. When the request has not completed after the hedge
+ * delay, a second request is sent and the first response wins. A request which fails transiently is retried after a
+ * jittered exponential backoff. The attempts run on a bounded pool and all of them complete within a deadline;
+ * attempts which lose the race are aborted, which releases their connections.
+ */
+public class HedgedRequestExecutor {
+
+    private static Log log = LogFactory.getLog(HedgedRequestExecutor.class);
+
+    private static final int MINIMUM_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final HedgedRequestConfig config;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * A single request of a hedged or retried call.
+     *
+     * @param <T> the result type
+     */
+    public interface Attempt<T> extends Callable<T> {
+
+        /**
+         * Abort the request, releasing its connection.
+         */
+        void abort();
+    }
+
+    /**
+     * Creates a new request for each attempt of a call.
+     *
+     * @param <T> the result type
+     */
+    public interface AttemptFactory<T> {
+
+        Attempt<T> newAttempt();
+    }
+
+    /**
+     * Create the executor.
+     *
+     * @param config    the hedging and retry configuration
+     * @param executor  the bounded pool the attempts run on, which rejects attempts when it has no free thread
+     * @param scheduler aborts a request sent on the calling thread once its deadline has passed
+     */
+    public HedgedRequestExecutor(HedgedRequestConfig config, ExecutorService executor,
+                                 ScheduledExecutorService scheduler) {
+        this.config = config;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Send a request, hedging and retrying it as configured. When the pool has no free thread the request is sent
+     * once on the calling thread, and aborted if it has not completed by the deadline.
+     *
+     * @param factory creates the request of each attempt
+     * @param latency the observed latency of the request, which the hedge delay follows
+     * @param flow    the measurements of the login
+     * @param <T>     the result type
+     * @return the result of the first successful attempt
+     * @throws SocketTimeoutException if no attempt succeeds within the deadline
+     * @throws IOException            the failure of the last attempt
+     */
+    public <T> T execute(AttemptFactory<T> factory, LatencyHistogram latency, LoginFlow flow) throws IOException {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(config.getDeadline());
+        long hedgeDelay = getHedgeDelayNanos(latency);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<T>, Attempt<T>> inFlight = new HashMap<>(4);
+
+        Attempt<T> first = factory.newAttempt();
+        if (!submit(completionService, first, inFlight)) {
+            return callWithinDeadline(first, deadline);
+        }
+        long hedgeTime = hedgeDelay >= 0 ? startTime + hedgeDelay : Long.MAX_VALUE;
+        long retryTime = Long.MAX_VALUE;
+        boolean hedged = false;
+        int retries = 0;
+        IOException failure = null;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (now - deadline >= 0) {
+                    throw new SocketTimeoutException("The LinkedIn request did not complete within " +
+                                                     config.getDeadline() + " ms");
+                }
+                if (inFlight.isEmpty()) {
+                    // waiting for the backoff of a retry
+                    if (retryTime - now > 0) {
+                        TimeUnit.NANOSECONDS.sleep(Math.min(retryTime, deadline) - now);
+                        continue;
+                    }
+                    if (!submit(completionService, factory.newAttempt(), inFlight)) {
+                        throw failure;
+                    }
+                    if (hedgeDelay >= 0 && !hedged) {
+                        hedgeTime = now + hedgeDelay;
+                    }
+                    continue;
+                }
+                long waitUntil = hedged ? deadline : Math.min(hedgeTime, deadline);
+                Future<T> completed = completionService.poll(Math.max(0, waitUntil - now), TimeUnit.NANOSECONDS);
+                if (completed == null) {
+                    if (!hedged && System.nanoTime() - hedgeTime >= 0) {
+                        hedged = true;
+                        if (submit(completionService, factory.newAttempt(), inFlight)) {
+                            flow.recordHedged();
+                        }
+                    }
+                    continue;
+                }
+                inFlight.remove(completed);
+                try {
+                    return completed.get();
+                } catch (ExecutionException e) {
+                    failure = toIOException(e.getCause());
+                }
+                if (!isTransient(failure)) {
+                    throw failure;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("LinkedIn request failed transiently: " + failure.getMessage());
+                }
+                if (!inFlight.isEmpty()) {
+                    // the other attempt may still succeed
+                    continue;
+                }
+                if (retries >= config.getMaxRetries()) {
+                    throw failure;
+                }
+                retries++;
+                retryTime = System.nanoTime() + getBackoffNanos(retries);
+                if (retryTime - deadline >= 0) {
+                    throw failure;
+                }
+                flow.recordRetried();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the LinkedIn response");
+        } finally {
+            for (Map.Entry<Future<T>, Attempt<T>> attempt : inFlight.entrySet()) {
+                attempt.getValue().abort();
+                attempt.getKey().cancel(true);
+            }
+        }
+    }
+
+    private <T> boolean submit(CompletionService<T> completionService, Attempt<T> attempt,
+                               Map<Future<T>, Attempt<T>> inFlight) {
+        try {
+            inFlight.put(completionService.submit(attempt), attempt);
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("No thread is free for a LinkedIn request attempt");
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Send a request on the calling thread, aborting it from the scheduler once the deadline has passed.
+     */
+    private <T> T callWithinDeadline(final Attempt<T> attempt, long deadline) throws IOException {
+        final AtomicBoolean aborted = new AtomicBoolean();
+        ScheduledFuture<?> abort = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                aborted.set(true);
+                attempt.abort();
+            }
+        }, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        try {
+            return attempt.call();
+        } catch (Exception e) {
+            if (aborted.get()) {
+                SocketTimeoutException timeout = new SocketTimeoutException(
+                        "The LinkedIn request did not complete within " + config.getDeadline() + " ms");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw toIOException(e);
+        } finally {
+            abort.cancel(false);
+        }
+    }
+
+    /**
+     * Get the delay before a hedged request, the configured delay or the p95 of the observed latency.
+     *
+     * @param latency the observed latency
+     * @return delay in nanoseconds, or -1 if the request is not hedged
+     */
+    private long getHedgeDelayNanos(LatencyHistogram latency) {
+        if (!config.isHedgingEnabled()) {
+            return -1;
+        }
+        if (config.getHedgeDelay() > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(config.getHedgeDelay());
+        }
+        if (latency == null || latency.getCount() < MINIMUM_SAMPLES) {
+            return -1;
+        }
+        double delay = Math.max(config.getHedgeMinDelay(), latency.getPercentileMillis(HEDGE_PERCENTILE));
+        return (long) (delay * 1000000);
+    }
+
+    /**
+     * Get the backoff of a retry, a random delay between half and all of the base backoff doubled for each earlier
+     * retry.
+     *
+     * @param retry the number of the retry, from 1
+     * @return backoff in nanoseconds
+     */
+    private long getBackoffNanos(int retry) {
+        long maxBackoff = (long) config.getRetryBackoff() << Math.min(retry - 1, MAX_BACKOFF_SHIFT);
+        return TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(maxBackoff / 2, maxBackoff + 1));
+    }
+
+    /**
+     * Check whether an attempt failed in a way another attempt may not. Open circuits, client errors, invalid
+     * responses and interrupts fail the call at once, and so does a timeout leasing a pooled connection, since
+     * another attempt would wait for the same exhausted pool.
+     *
+     * @param failure the failure
+     * @return true for connect and read timeouts, dropped connections, server errors and throttled requests
+     */
+    static boolean isTransient(IOException failure) {
+        if (failure instanceof UnexpectedResponseException) {
+            return ((UnexpectedResponseException) failure).isTransient();
+        }
+        if (failure instanceof CircuitBreakerOpenException || failure instanceof ConnectionPoolTimeoutException) {
+            return false;
+        }
+        // any other InterruptedIOException is an interrupt of the request, not a timeout
+        return failure instanceof SocketTimeoutException || failure instanceof ConnectTimeoutException
+               || failure instanceof SocketException || failure instanceof NoHttpResponseException
+               || failure instanceof ConnectionClosedException;
+    }
+
+    private static IOException toIOException(Throwable error) {
+        if (error instanceof IOException) {
+            return (IOException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        return new IOException(error);
+    }
+}
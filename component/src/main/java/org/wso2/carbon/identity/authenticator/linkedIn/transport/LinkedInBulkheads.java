@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulkheads of the outbound LinkedIn calls of each tenant and of each identity provider in a tenant, so that the
+ * logins of one tenant cannot take the connections and threads the logins of the other tenants need.
+ */
+public class LinkedInBulkheads {
+
+    private final int tenantMaxConcurrentCalls;
+    private final int tenantMaxWaitingCalls;
+    private final long maxWait;
+    private final ConcurrentHashMap<String, Bulkhead> tenantBulkheads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Bulkhead>> idpBulkheads =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Create the bulkheads.
+     *
+     * @param tenantMaxConcurrentCalls maximum concurrent callbacks of a tenant, or 0 for no tenant limit
+     * @param tenantMaxWaitingCalls    maximum callbacks of a tenant waiting for a permit
+     * @param maxWait                  maximum time in milliseconds a callback waits for a permit
+     */
+    public LinkedInBulkheads(int tenantMaxConcurrentCalls, int tenantMaxWaitingCalls, long maxWait) {
+        this.tenantMaxConcurrentCalls = tenantMaxConcurrentCalls;
+        this.tenantMaxWaitingCalls = tenantMaxWaitingCalls;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Create the bulkheads from the authenticator parameters.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return bulkheads
+     */
+    public static LinkedInBulkheads fromParameters(Map<String, String> parameters) {
+        return new LinkedInBulkheads(
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.TENANT_MAX_CONCURRENT_REQUESTS,
+                        LinkedInAuthenticatorConstants.DEFAULT_TENANT_MAX_CONCURRENT_REQUESTS),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.TENANT_MAX_QUEUED_REQUESTS,
+                        LinkedInAuthenticatorConstants.DEFAULT_TENANT_MAX_QUEUED_REQUESTS),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.BULKHEAD_MAX_WAIT,
+                        LinkedInAuthenticatorConstants.DEFAULT_BULKHEAD_MAX_WAIT));
+    }
+
+    /**
+     * Acquire the permits of a callback from the bulkheads of its identity provider and tenant. Both waits share
+     * the maximum wait.
+     *
+     * @param tenantDomain          the tenant domain
+     * @param idpName               the identity provider name
+     * @param idpMaxConcurrentCalls maximum concurrent callbacks of the identity provider, or 0 for no limit
+     * @param idpMaxWaitingCalls    maximum callbacks of the identity provider waiting for a permit
+     * @return the permit, to be released once the LinkedIn calls of the callback complete
+     * @throws BulkheadFullException         if the tenant or the identity provider has too many callbacks in progress
+     * @throws AuthenticationFailedException if interrupted while waiting for a permit
+     */
+    public Permit acquire(String tenantDomain, String idpName, int idpMaxConcurrentCalls, int idpMaxWaitingCalls)
+            throws AuthenticationFailedException {
+        long deadline = System.currentTimeMillis() + maxWait;
+        Bulkhead idpBulkhead = getIdpBulkhead(tenantDomain, idpName, idpMaxConcurrentCalls, idpMaxWaitingCalls);
+        Bulkhead tenantBulkhead = getTenantBulkhead(tenantDomain);
+        boolean acquired = false;
+        try {
+            if (idpBulkhead != null && !idpBulkhead.tryAcquire(maxWait)) {
+                throw new BulkheadFullException("Too many LinkedIn callbacks in progress for the identity provider: "
+                                                + idpName + " of the tenant: " + tenantDomain
+                                                + ". Rejecting the callback");
+            }
+            try {
+                if (tenantBulkhead != null
+                    && !tenantBulkhead.tryAcquire(Math.max(0, deadline - System.currentTimeMillis()))) {
+                    throw new BulkheadFullException("Too many LinkedIn callbacks in progress for the tenant: "
+                                                    + tenantDomain + ". Rejecting the callback");
+                }
+                acquired = true;
+            } finally {
+                if (!acquired && idpBulkhead != null) {
+                    idpBulkhead.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationFailedException("Interrupted while waiting to call LinkedIn", e);
+        }
+        return new Permit(idpBulkhead, tenantBulkhead);
+    }
+
+    /**
+     * Get the bulkhead of a tenant.
+     *
+     * @param tenantDomain the tenant domain
+     * @return the bulkhead, or null if the callbacks of a tenant are not limited
+     */
+    public Bulkhead getTenantBulkhead(String tenantDomain) {
+        if (tenantMaxConcurrentCalls <= 0 || tenantDomain == null) {
+            return null;
+        }
+        Bulkhead bulkhead = tenantBulkheads.get(tenantDomain);
+        if (bulkhead == null) {
+            Bulkhead newBulkhead = new Bulkhead(tenantMaxConcurrentCalls, tenantMaxWaitingCalls);
+            bulkhead = tenantBulkheads.putIfAbsent(tenantDomain, newBulkhead);
+            if (bulkhead == null) {
+                bulkhead = newBulkhead;
+            }
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Get the bulkhead of an identity provider. The bulkhead is replaced when the identity provider is updated with
+     * other limits; callbacks in progress release the permits of the bulkhead they acquired them from.
+     *
+     * @param tenantDomain       the tenant domain
+     * @param idpName            the identity provider name
+     * @param maxConcurrentCalls maximum concurrent callbacks of the identity provider, or 0 for no limit
+     * @param maxWaitingCalls    maximum callbacks of the identity provider waiting for a permit
+     * @return the bulkhead, or null if the callbacks of the identity provider are not limited
+     */
+    public Bulkhead getIdpBulkhead(String tenantDomain, String idpName, int maxConcurrentCalls,
+                                   int maxWaitingCalls) {
+        if (maxConcurrentCalls <= 0 || tenantDomain == null || idpName == null) {
+            return null;
+        }
+        ConcurrentHashMap<String, Bulkhead> tenantIdpBulkheads = idpBulkheads.get(tenantDomain);
+        if (tenantIdpBulkheads == null) {
+            ConcurrentHashMap<String, Bulkhead> newBulkheads = new ConcurrentHashMap<>();
+            tenantIdpBulkheads = idpBulkheads.putIfAbsent(tenantDomain, newBulkheads);
+            if (tenantIdpBulkheads == null) {
+                tenantIdpBulkheads = newBulkheads;
+            }
+        }
+        Bulkhead bulkhead = tenantIdpBulkheads.get(idpName);
+        while (bulkhead == null || !bulkhead.hasLimits(maxConcurrentCalls, maxWaitingCalls)) {
+            Bulkhead newBulkhead = new Bulkhead(maxConcurrentCalls, maxWaitingCalls);
+            boolean replaced = bulkhead == null ? tenantIdpBulkheads.putIfAbsent(idpName, newBulkhead) == null
+                                                : tenantIdpBulkheads.replace(idpName, bulkhead, newBulkhead);
+            bulkhead = replaced ? newBulkhead : tenantIdpBulkheads.get(idpName);
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Permits of a callback, released once its LinkedIn calls complete.
+     */
+    public static class Permit {
+
+        private final Bulkhead idpBulkhead;
+        private final Bulkhead tenantBulkhead;
+
+        private Permit(Bulkhead idpBulkhead, Bulkhead tenantBulkhead) {
+            this.idpBulkhead = idpBulkhead;
+            this.tenantBulkhead = tenantBulkhead;
+        }
+
+        public void release() {
+            if (tenantBulkhead != null) {
+                tenantBulkhead.release();
+            }
+            if (idpBulkhead != null) {
+                idpBulkhead.release();
+            }
+        }
+    }
+}
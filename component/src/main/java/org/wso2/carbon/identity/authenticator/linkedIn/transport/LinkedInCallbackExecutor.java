@@ -0,0 +1,138 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor which runs the outbound LinkedIn calls of a callback. It bounds the wait of a callback, it does
+ * not release the request thread: the framework processes a callback synchronously, so the request thread stays
+ * parked until the calls complete or the callback timeout expires. What it adds is a single deadline for the token
+ * exchange and the user info fetch together, instead of the sum of their http timeouts, and a fixed number of threads
+ * and queued callbacks, so further callbacks are rejected immediately while LinkedIn is slow. This costs a thread
+ * hop and a task per callback, which is why it is only used in the async execution mode.
+ */
+public class LinkedInCallbackExecutor {
+
+    private static Log log = LogFactory.getLog(LinkedInCallbackExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long callbackTimeout;
+
+    public LinkedInCallbackExecutor(int poolSize, int queueSize, long callbackTimeout) {
+        this.callbackTimeout = callbackTimeout;
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "linkedin-callback-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Create the callback executor when the asynchronous execution mode is configured.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return the callback executor, or null when the LinkedIn calls run on the calling thread
+     */
+    public static LinkedInCallbackExecutor fromParameters(Map<String, String> parameters) {
+        if (!LinkedInAuthenticatorConstants.CALLBACK_EXECUTION_MODE_ASYNC.equalsIgnoreCase(
+                parameters.get(LinkedInAuthenticatorConstants.CALLBACK_EXECUTION_MODE))) {
+            return null;
+        }
+        return new LinkedInCallbackExecutor(
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CALLBACK_EXECUTOR_POOL_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_CALLBACK_EXECUTOR_POOL_SIZE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CALLBACK_EXECUTOR_QUEUE_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_CALLBACK_EXECUTOR_QUEUE_SIZE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.CALLBACK_TIMEOUT,
+                        LinkedInAuthenticatorConstants.DEFAULT_CALLBACK_TIMEOUT));
+    }
+
+    /**
+     * Run the LinkedIn calls of a callback on the executor and wait for the outcome, at most for the callback
+     * timeout. The calling thread is blocked while it waits.
+     *
+     * @param task the LinkedIn calls
+     * @param <T>  the result type
+     * @return the result of the task
+     * @throws AuthenticationFailedException if the task fails, is rejected or does not complete in time
+     */
+    public <T> T execute(Callable<T> task) throws AuthenticationFailedException {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationFailedException("Too many LinkedIn callbacks in progress. Rejecting the callback",
+                                                    e);
+        }
+        try {
+            return future.get(callbackTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new AuthenticationFailedException("LinkedIn did not respond within " + callbackTimeout + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationFailedException("Interrupted while waiting for the LinkedIn response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthenticationFailedException) {
+                throw (AuthenticationFailedException) cause;
+            }
+            throw new AuthenticationFailedException("Error while processing the LinkedIn callback", cause);
+        }
+    }
+
+    /**
+     * Stop the executor, interrupting the running callbacks.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        if (log.isDebugEnabled()) {
+            log.debug("LinkedIn callback executor is shut down");
+        }
+    }
+}
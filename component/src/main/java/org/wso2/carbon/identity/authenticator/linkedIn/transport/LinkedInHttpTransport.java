@@ -0,0 +1,379 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.oltu.oauth2.client.OAuthClient;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.BoundedInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Keep-alive HTTP transport shared by the token and the user info calls of the LinkedIn authenticator.
+ * Connections are pooled per host and idle connections are evicted in the background. Each endpoint has its own
+ * circuit breaker and a timeout which adapts to its observed latency.
+ */
+public class LinkedInHttpTransport implements Closeable {
+
+    private static Log log = LogFactory.getLog(LinkedInHttpTransport.class);
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private final LinkedInHttpTransportConfig config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final RequestConfig requestConfig;
+    private final CloseableHttpClient httpClient;
+    private final OAuthClient oAuthClient;
+    private final LinkedInUserInfoClient userInfoClient;
+    private final ScheduledExecutorService scheduler;
+    private final ResponseBufferPool bufferPool;
+    private final ThreadPoolExecutor userInfoExecutor;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public LinkedInHttpTransport(LinkedInHttpTransportConfig config) {
+        this.config = config;
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getMaxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeout())
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSocketTimeout(config.getReadTimeout())
+                .build();
+        // the responses are decompressed by openReader, which counts the bytes received and borrows pooled buffers
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableContentCompression()
+                .build();
+        bufferPool = new ResponseBufferPool(config.getBufferPoolSize());
+        // threads are only started for the user info requests which run next to the login thread
+        userInfoExecutor = new ThreadPoolExecutor(0, config.getUserInfoPoolSize(), 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "linkedin-user-info-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+        // evicts the idle connections and aborts the user info requests sent on the login thread at their deadline
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "linkedin-transport-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        hedgedRequestExecutor = config.getHedgedRequestConfig().isEnabled() ?
+                                new HedgedRequestExecutor(config.getHedgedRequestConfig(), userInfoExecutor,
+                                                          scheduler) : null;
+        oAuthClient = new OAuthClient(new PooledOAuthHttpClient(this));
+        userInfoClient = new LinkedInUserInfoClient(this);
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdleConnections();
+            }
+        }, config.getEvictionInterval(), config.getEvictionInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the OAuth client which sends the token requests through this transport.
+     *
+     * @return OAuth client
+     */
+    public OAuthClient getOAuthClient() {
+        return oAuthClient;
+    }
+
+    /**
+     * Get the client of the user info endpoint which sends its requests through this transport.
+     *
+     * @return user info client
+     */
+    public LinkedInUserInfoClient getUserInfoClient() {
+        return userInfoClient;
+    }
+
+    /**
+     * Get the bounded pool of the user info requests which run next to the login thread. It rejects the requests
+     * when it has no free thread.
+     *
+     * @return the pool
+     */
+    ExecutorService getUserInfoExecutor() {
+        return userInfoExecutor;
+    }
+
+    /**
+     * Get the executor which hedges and retries the user info requests.
+     *
+     * @return the executor, or null if the user info requests are sent once
+     */
+    public HedgedRequestExecutor getHedgedRequestExecutor() {
+        return hedgedRequestExecutor;
+    }
+
+    /**
+     * Execute a request over a pooled connection. The caller must close the response to release the connection
+     * back to the pool.
+     *
+     * @param request the http request
+     * @return the http response
+     * @throws CircuitBreakerOpenException if the circuit of the endpoint is open
+     * @throws IOException
+     */
+    public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+        Endpoint endpoint = getEndpoint(request.getURI());
+        if (endpoint.circuitBreaker != null && !endpoint.circuitBreaker.tryAcquirePermission()) {
+            throw new CircuitBreakerOpenException("The circuit of the LinkedIn " + endpoint.name +
+                                                  " endpoint is open");
+        }
+        if (endpoint.timeout != null && request instanceof HttpRequestBase) {
+            int timeout = endpoint.timeout.getTimeout();
+            ((HttpRequestBase) request).setConfig(RequestConfig.copy(requestConfig)
+                    .setConnectTimeout(Math.min(timeout, config.getConnectionTimeout()))
+                    .setSocketTimeout(timeout)
+                    .build());
+        }
+        if (config.isCompressionEnabled() && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+        long startTime = System.nanoTime();
+        CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(request);
+        } catch (IOException | RuntimeException e) {
+            // neither an aborted hedge nor a timeout leasing a connection from our own exhausted pool says anything
+            // about the health of the endpoint, and counting the pool timeouts would make a local overload worse
+            if (request.isAborted() || e instanceof ConnectionPoolTimeoutException) {
+                endpoint.onAborted();
+            } else {
+                endpoint.onFailure(System.nanoTime() - startTime, e);
+            }
+            throw e;
+        }
+        endpoint.onResponse(System.nanoTime() - startTime, response.getStatusLine().getStatusCode());
+        return response;
+    }
+
+    /**
+     * Open a reader of the body of a response, decompressing a gzip or deflate encoded body. The decompressed body
+     * is limited to the maximum response size, and is decoded as UTF-8 through pooled buffers. The caller must close
+     * the reader, which also releases the connection.
+     *
+     * @param entity the response entity
+     * @return the reader
+     * @throws IOException if the body can not be read or its encoding is not supported
+     */
+    public ResponseReader openReader(HttpEntity entity) throws IOException {
+        BoundedInputStream received = new BoundedInputStream(entity.getContent(), config.getMaxResponseSize());
+        InputStream content = received;
+        try {
+            Header contentEncoding = entity.getContentEncoding();
+            String encoding = contentEncoding != null ? contentEncoding.getValue().trim().toLowerCase(Locale.ENGLISH)
+                                                      : null;
+            if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+                content = new BoundedInputStream(new GZIPInputStream(received), config.getMaxResponseSize());
+            } else if ("deflate".equals(encoding)) {
+                content = new BoundedInputStream(new InflaterInputStream(received), config.getMaxResponseSize());
+            } else if (StringUtils.isNotEmpty(encoding) && !"identity".equals(encoding)) {
+                throw new IOException("Unsupported content encoding: " + encoding);
+            }
+        } catch (IOException | RuntimeException e) {
+            received.close();
+            throw e;
+        }
+        return new ResponseReader(received, content, bufferPool);
+    }
+
+    /**
+     * Open a pooled connection to the host of an endpoint, so that the first login does not pay for the DNS lookup,
+     * the connection and the TLS handshake. The request bypasses the circuit breaker and adaptive timeout of the
+     * endpoint, since its response says nothing about the health of the endpoint.
+     *
+     * @param uri a URI of the endpoint
+     * @return the status code of the response
+     * @throws IOException
+     */
+    public int warmUp(URI uri) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(new HttpHead(uri))) {
+            // Consuming the entity keeps the connection alive in the pool.
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+
+    /**
+     * Get the state of the circuit of an endpoint.
+     *
+     * @param uri a URI of the endpoint
+     * @return the state, or null if the circuit breaker is disabled
+     */
+    public CircuitBreaker.State getCircuitState(URI uri) {
+        CircuitBreaker circuitBreaker = getEndpoint(uri).circuitBreaker;
+        return circuitBreaker != null ? circuitBreaker.getState() : null;
+    }
+
+    private Endpoint getEndpoint(URI uri) {
+        String path = getEndpointPath(uri.getRawPath());
+        String key = uri.getScheme() + "://" + uri.getRawAuthority() + path;
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            Endpoint newEndpoint = new Endpoint(uri.getHost() + path, config);
+            endpoint = endpoints.putIfAbsent(key, newEndpoint);
+            if (endpoint == null) {
+                endpoint = newEndpoint;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * Get the path of an endpoint without the field selector of the v1 API, such as /v1/people/~ for
+     * /v1/people/~:(id,first-name). Identity providers requesting different fields then share the circuit breaker and
+     * adaptive timeout of the endpoint.
+     *
+     * @param rawPath the raw path of a request URI
+     * @return the endpoint path
+     */
+    static String getEndpointPath(String rawPath) {
+        if (rawPath == null) {
+            return "";
+        }
+        int fieldSelector = rawPath.indexOf(":(");
+        return fieldSelector < 0 ? rawPath : rawPath.substring(0, fieldSelector);
+    }
+
+    public LinkedInHttpTransportConfig getConfig() {
+        return config;
+    }
+
+    private void evictIdleConnections() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(config.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.error("Error while evicting idle LinkedIn connections", e);
+        }
+    }
+
+    /**
+     * Stop the eviction and the user info requests, and close all the pooled connections.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        userInfoExecutor.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the LinkedIn http client", e);
+        }
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Circuit breaker and adaptive timeout of a LinkedIn endpoint.
+     */
+    private static class Endpoint {
+
+        private final String name;
+        private final CircuitBreaker circuitBreaker;
+        private final AdaptiveTimeout timeout;
+
+        Endpoint(String name, LinkedInHttpTransportConfig config) {
+            this.name = name;
+            CircuitBreakerConfig circuitBreakerConfig = config.getCircuitBreakerConfig();
+            circuitBreaker = circuitBreakerConfig.isEnabled() ? new CircuitBreaker(name, circuitBreakerConfig) : null;
+            timeout = config.isAdaptiveTimeoutEnabled() ?
+                      new AdaptiveTimeout(config.getAdaptiveTimeoutMin(),
+                                          Math.max(config.getConnectionTimeout(), config.getReadTimeout()),
+                                          config.getAdaptiveTimeoutMultiplier()) : null;
+        }
+
+        void onResponse(long durationNanos, int statusCode) {
+            if (circuitBreaker != null) {
+                if (statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || statusCode == 429) {
+                    circuitBreaker.onFailure(durationNanos);
+                } else {
+                    circuitBreaker.onSuccess(durationNanos);
+                }
+            }
+            if (timeout != null) {
+                timeout.recordLatency(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+            }
+        }
+
+        void onAborted() {
+            if (circuitBreaker != null) {
+                circuitBreaker.releasePermission();
+            }
+        }
+
+        void onFailure(long durationNanos, Exception error) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure(durationNanos);
+            }
+            if (timeout != null &&
+                (error instanceof SocketTimeoutException || error instanceof ConnectTimeoutException)) {
+                timeout.recordTimeout();
+            }
+        }
+    }
+}
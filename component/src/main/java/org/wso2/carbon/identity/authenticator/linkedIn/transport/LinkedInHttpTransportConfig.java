@@ -0,0 +1,200 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorUtils;
+
+import java.util.Map;
+
+/**
+ * Connection pool, timeout, circuit breaker and hedging settings of the {@link LinkedInHttpTransport}.
+ */
+public class LinkedInHttpTransportConfig {
+
+    private final int maxTotalConnections;
+    private final int maxConnectionsPerRoute;
+    private final int idleConnectionTimeout;
+    private final int evictionInterval;
+    private final int connectionRequestTimeout;
+    private final int connectionTimeout;
+    private final int readTimeout;
+    private final int maxResponseSize;
+    private final boolean compressionEnabled;
+    private final int bufferPoolSize;
+    private final int userInfoPoolSize;
+    private final boolean adaptiveTimeoutEnabled;
+    private final int adaptiveTimeoutMin;
+    private final int adaptiveTimeoutMultiplier;
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final HedgedRequestConfig hedgedRequestConfig;
+
+    public LinkedInHttpTransportConfig(int maxTotalConnections, int maxConnectionsPerRoute,
+                                       int idleConnectionTimeout, int evictionInterval,
+                                       int connectionRequestTimeout, int connectionTimeout, int readTimeout,
+                                       int maxResponseSize, boolean compressionEnabled, int bufferPoolSize,
+                                       int userInfoPoolSize,
+                                       boolean adaptiveTimeoutEnabled, int adaptiveTimeoutMin,
+                                       int adaptiveTimeoutMultiplier, CircuitBreakerConfig circuitBreakerConfig,
+                                       HedgedRequestConfig hedgedRequestConfig) {
+        this.maxTotalConnections = maxTotalConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        this.evictionInterval = evictionInterval;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+        this.maxResponseSize = maxResponseSize;
+        this.compressionEnabled = compressionEnabled;
+        this.bufferPoolSize = bufferPoolSize;
+        this.userInfoPoolSize = Math.max(1, userInfoPoolSize);
+        this.adaptiveTimeoutEnabled = adaptiveTimeoutEnabled;
+        this.adaptiveTimeoutMin = adaptiveTimeoutMin;
+        this.adaptiveTimeoutMultiplier = adaptiveTimeoutMultiplier;
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        this.hedgedRequestConfig = hedgedRequestConfig;
+    }
+
+    /**
+     * Build the transport configuration from the authenticator parameters.
+     *
+     * @param parameters authenticator parameters of application-authentication.xml
+     * @return transport configuration
+     */
+    public static LinkedInHttpTransportConfig fromParameters(Map<String, String> parameters) {
+        return new LinkedInHttpTransportConfig(
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_MAX_TOTAL_CONNECTIONS,
+                        LinkedInAuthenticatorConstants.DEFAULT_MAX_TOTAL_CONNECTIONS),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE,
+                        LinkedInAuthenticatorConstants.DEFAULT_MAX_CONNECTIONS_PER_ROUTE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_IDLE_CONNECTION_TIMEOUT,
+                        LinkedInAuthenticatorConstants.DEFAULT_IDLE_CONNECTION_TIMEOUT),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_EVICTION_INTERVAL,
+                        LinkedInAuthenticatorConstants.DEFAULT_EVICTION_INTERVAL),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_CONNECTION_REQUEST_TIMEOUT,
+                        LinkedInAuthenticatorConstants.DEFAULT_CONNECTION_REQUEST_TIMEOUT),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_CONNECTION_TIMEOUT,
+                        LinkedInAuthenticatorConstants.CONNECTION_TIMEOUT_VALUE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_READ_TIMEOUT,
+                        LinkedInAuthenticatorConstants.READ_TIMEOUT_VALUE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_MAX_RESPONSE_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_MAX_RESPONSE_SIZE),
+                LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_COMPRESSION_ENABLED, true),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.HTTP_BUFFER_POOL_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_BUFFER_POOL_SIZE),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.USER_INFO_POOL_SIZE,
+                        LinkedInAuthenticatorConstants.DEFAULT_USER_INFO_POOL_SIZE),
+                LinkedInAuthenticatorUtils.getBooleanParameter(parameters,
+                        LinkedInAuthenticatorConstants.ADAPTIVE_TIMEOUT_ENABLED, false),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.ADAPTIVE_TIMEOUT_MIN,
+                        LinkedInAuthenticatorConstants.DEFAULT_ADAPTIVE_TIMEOUT_MIN),
+                LinkedInAuthenticatorUtils.getIntParameter(parameters,
+                        LinkedInAuthenticatorConstants.ADAPTIVE_TIMEOUT_MULTIPLIER,
+                        LinkedInAuthenticatorConstants.DEFAULT_ADAPTIVE_TIMEOUT_MULTIPLIER),
+                CircuitBreakerConfig.fromParameters(parameters),
+                HedgedRequestConfig.fromParameters(parameters));
+    }
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public int getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public int getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    /**
+     * Check whether gzip and deflate encoded responses are requested.
+     *
+     * @return true if the responses may be compressed
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+
+    /**
+     * Get the number of threads sending the user info requests which run next to the login thread.
+     *
+     * @return pool size
+     */
+    public int getUserInfoPoolSize() {
+        return userInfoPoolSize;
+    }
+
+    public boolean isAdaptiveTimeoutEnabled() {
+        return adaptiveTimeoutEnabled;
+    }
+
+    public int getAdaptiveTimeoutMin() {
+        return adaptiveTimeoutMin;
+    }
+
+    public int getAdaptiveTimeoutMultiplier() {
+        return adaptiveTimeoutMultiplier;
+    }
+
+    public CircuitBreakerConfig getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    public HedgedRequestConfig getHedgedRequestConfig() {
+        return hedgedRequestConfig;
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoFieldHandler;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoParser;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client of the LinkedIn user info endpoint, sending its requests through the pooled {@link LinkedInHttpTransport}.
+ * It is shared by the login path and the background profile refresh.
+ */
+public class LinkedInUserInfoClient {
+
+    private static Log log = LogFactory.getLog(LinkedInUserInfoClient.class);
+
+    private final LinkedInHttpTransport transport;
+
+    public LinkedInUserInfoClient(LinkedInHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Fetch the LinkedIn user details as claims of the LinkedIn claim dialect.
+     *
+     * @param url         user info endpoint.
+     * @param accessToken access token.
+     * @param flow        the measurements of the login.
+     * @return the claims, empty if the response has no fields
+     * @throws ApplicationAuthenticatorException
+     */
+    public CompactClaimMap fetchClaims(String url, String accessToken, LoginFlow flow)
+            throws ApplicationAuthenticatorException {
+        final CompactClaimMap.Builder claims = new CompactClaimMap.Builder(8);
+        int fieldCount = fetchUserInfo(url, accessToken, new UserInfoFieldHandler() {
+            @Override
+            public void onField(String name, String value) {
+                claims.put(ClaimMappingRegistry.LINKEDIN.getClaimMapping(name), value);
+            }
+        }, flow);
+        return fieldCount == 0 ? CompactClaimMap.empty() : claims.build();
+    }
+
+    /**
+     * Get the LinkedIn user details. The response is parsed as it is read and each field is
+     * passed to the handler. When hedging or retries are configured, the fields of the winning response are passed to
+     * the handler once it is complete.
+     *
+     * @param url         user info endpoint.
+     * @param accessToken access token.
+     * @param handler     receives the user info fields.
+     * @param flow        the measurements of the login.
+     * @return number of user info fields received
+     * @throws ApplicationAuthenticatorException
+     */
+    public int fetchUserInfo(String url, String accessToken, UserInfoFieldHandler handler, LoginFlow flow)
+            throws ApplicationAuthenticatorException {
+        return fetchUserInfo(url, accessToken, false, null, handler, flow);
+    }
+
+    /**
+     * Fetch the LinkedIn user details from the profile and email address endpoints of the v2 API as claims of the
+     * LinkedIn claim dialect. Both requests are sent at the same time, the email address request on the user info
+     * pool, so the slower of the two decides the latency. When the pool has no free thread they are sent one after
+     * the other. The email address response is awaited at most until the user info deadline, after which its request
+     * is aborted.
+     *
+     * @param profileUrl      profile endpoint.
+     * @param emailAddressUrl email address endpoint.
+     * @param accessToken     access token.
+     * @param flow            the measurements of the login.
+     * @return the claims, empty if the responses have no fields
+     * @throws ApplicationAuthenticatorException
+     */
+    public CompactClaimMap fetchClaimsV2(String profileUrl, final String emailAddressUrl, final String accessToken,
+                                         LoginFlow flow) throws ApplicationAuthenticatorException {
+        // the email address response is awaited at most until the deadline of the user info requests
+        long deadline = System.nanoTime() +
+                        TimeUnit.MILLISECONDS.toNanos(transport.getConfig().getHedgedRequestConfig().getDeadline());
+        final LoginFlow emailAddressFlow = flow.fork();
+        final PendingRequests emailAddressRequests = new PendingRequests();
+        Callable<String> emailAddressRequest = new Callable<String>() {
+            @Override
+            public String call() throws ApplicationAuthenticatorException {
+                return fetchEmailAddress(emailAddressUrl, accessToken, emailAddressRequests, emailAddressFlow);
+            }
+        };
+        Future<String> emailAddressResponse = null;
+        try {
+            emailAddressResponse = transport.getUserInfoExecutor().submit(emailAddressRequest);
+        } catch (RejectedExecutionException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("No thread is free for the email address request. Sending it after the profile request");
+            }
+        }
+        CompactClaimMap.Builder claims = new CompactClaimMap.Builder(8);
+        int fieldCount;
+        String emailAddress;
+        try {
+            try {
+                fieldCount = fetchUserInfo(profileUrl, accessToken, true, null, new ProfileHandler(claims), flow);
+            } catch (ApplicationAuthenticatorException | RuntimeException e) {
+                if (emailAddressResponse != null) {
+                    // interrupting the thread does not stop a blocking read, aborting the request does
+                    emailAddressRequests.abort();
+                    emailAddressResponse.cancel(true);
+                }
+                throw e;
+            }
+            if (emailAddressResponse != null) {
+                emailAddress = getEmailAddress(emailAddressResponse, emailAddressRequests, deadline, emailAddressUrl);
+            } else {
+                emailAddress = fetchEmailAddress(emailAddressUrl, accessToken, null, emailAddressFlow);
+            }
+        } finally {
+            flow.join(emailAddressFlow);
+        }
+        if (emailAddress != null) {
+            claims.put(ClaimMappingRegistry.LINKEDIN.getClaimMapping(LinkedInAuthenticatorConstants.EMAIL_ADDRESS),
+                       emailAddress);
+            fieldCount++;
+        }
+        return fieldCount == 0 ? CompactClaimMap.empty() : claims.build();
+    }
+
+    /**
+     * Send a user info request.
+     *
+     * @param url         user info endpoint.
+     * @param accessToken access token.
+     * @param bearer      whether the access token is sent in the Authorization header instead of the query string.
+     * @param requests    keeps the requests so that they can be aborted, or null.
+     * @param handler     receives the user info fields.
+     * @param flow        the measurements of the login.
+     * @return number of user info fields received
+     * @throws ApplicationAuthenticatorException
+     */
+    private int fetchUserInfo(final String url, final String accessToken, final boolean bearer,
+                              final PendingRequests requests, UserInfoFieldHandler handler, LoginFlow flow)
+            throws ApplicationAuthenticatorException {
+        if (log.isDebugEnabled()) {
+            log.debug("Sending the request for getting the user info");
+        }
+        int fieldCount;
+        try {
+            HedgedRequestExecutor hedgedRequestExecutor = transport.getHedgedRequestExecutor();
+            if (hedgedRequestExecutor == null) {
+                UserInfoAttempt attempt = new UserInfoAttempt(url, accessToken, bearer, requests, handler);
+                try {
+                    fieldCount = attempt.call();
+                } finally {
+                    flow.recordBytesReceived(attempt.bytesReceived);
+                }
+            } else {
+                BufferedUserInfo userInfo = hedgedRequestExecutor.execute(
+                        new HedgedRequestExecutor.AttemptFactory<BufferedUserInfo>() {
+                            @Override
+                            public HedgedRequestExecutor.Attempt<BufferedUserInfo> newAttempt() {
+                                return new BufferedUserInfo(url, accessToken, bearer, requests);
+                            }
+                        }, flow.getMetrics().getHistogram(LinkedInMetrics.Phase.USER_INFO), flow);
+                flow.recordBytesReceived(userInfo.attempt.bytesReceived);
+                fieldCount = userInfo.replay(handler);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ApplicationAuthenticatorException("Error while generating the user info URL: " + url, e);
+        } catch (UnexpectedResponseException e) {
+            throw new ApplicationAuthenticatorException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new ApplicationAuthenticatorException("Error when reading the response from " + url +
+                                                        "to update user claims", e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Received " + fieldCount + " fields in the response for the User info");
+        }
+        return fieldCount;
+    }
+
+    private String getEmailAddress(Future<String> emailAddressResponse, PendingRequests emailAddressRequests,
+                                   long deadline, String emailAddressUrl) throws ApplicationAuthenticatorException {
+        try {
+            // the socket timeout applies to each read, so a response trickling in could otherwise outlast it
+            return emailAddressResponse.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            emailAddressRequests.abort();
+            emailAddressResponse.cancel(true);
+            throw new ApplicationAuthenticatorException("No response from " + emailAddressUrl + " within " +
+                                                        transport.getConfig().getHedgedRequestConfig().getDeadline() +
+                                                        " ms", e);
+        } catch (InterruptedException e) {
+            emailAddressRequests.abort();
+            emailAddressResponse.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ApplicationAuthenticatorException("Interrupted while waiting for the response from " +
+                                                        emailAddressUrl, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ApplicationAuthenticatorException) {
+                throw (ApplicationAuthenticatorException) cause;
+            }
+            throw new ApplicationAuthenticatorException("Error when reading the response from " + emailAddressUrl,
+                                                        cause);
+        }
+    }
+
+    private String fetchEmailAddress(String emailAddressUrl, String accessToken, PendingRequests requests,
+                                     LoginFlow flow) throws ApplicationAuthenticatorException {
+        EmailAddressHandler handler = new EmailAddressHandler();
+        fetchUserInfo(emailAddressUrl, accessToken, true, requests, handler, flow);
+        try {
+            return handler.getEmailAddress();
+        } catch (IOException e) {
+            throw new ApplicationAuthenticatorException("Error when reading the email address from " +
+                                                        emailAddressUrl, e);
+        }
+    }
+
+    /**
+     * Close the http response, releasing its connection.
+     *
+     * @param httpResponse the http response
+     */
+    private void closeResponse(CloseableHttpResponse httpResponse) {
+        if (httpResponse != null) {
+            try {
+                httpResponse.close();
+            } catch (IOException e) {
+                log.error("Error while closing the http response", e);
+            }
+        }
+    }
+
+    /**
+     * The requests of a call running on another thread, which are aborted when the call is no longer needed. A request
+     * created after the abort is aborted at once, so the call fails without sending it.
+     */
+    private static class PendingRequests {
+
+        private final List<HttpGet> requests = new ArrayList<>(2);
+        private boolean aborted;
+
+        synchronized void add(HttpGet httpGet) {
+            if (aborted) {
+                httpGet.abort();
+            } else {
+                requests.add(httpGet);
+            }
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            for (HttpGet httpGet : requests) {
+                httpGet.abort();
+            }
+        }
+    }
+
+    /**
+     * A user info request, passing the fields of the response to a handler as they are read.
+     */
+    private class UserInfoAttempt {
+
+        private final String url;
+        private final HttpGet httpGet;
+        private final UserInfoFieldHandler handler;
+        private long bytesReceived;
+
+        UserInfoAttempt(String url, String accessToken, boolean bearer, PendingRequests requests,
+                        UserInfoFieldHandler handler) {
+            this.url = url;
+            if (bearer) {
+                this.httpGet = new HttpGet(url);
+                this.httpGet.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+            } else {
+                this.httpGet = new HttpGet(appendAccessToken(url, accessToken));
+            }
+            this.httpGet.setHeader(HttpHeaders.ACCEPT, LinkedInAuthenticatorConstants.HTTP_ACCEPT_JSON);
+            this.handler = handler;
+            if (requests != null) {
+                requests.add(httpGet);
+            }
+        }
+
+        /**
+         * Append the access token to the query string of the user info URL.
+         *
+         * @param url         user info endpoint, with or without a query string
+         * @param accessToken access token
+         * @return the user info URL with the access token parameter
+         */
+        private String appendAccessToken(String url, String accessToken) {
+            try {
+                return url + (url.indexOf('?') < 0 ? '?' : '&') +
+                       LinkedInAuthenticatorConstants.LINKEDIN_OAUTH2_ACCESS_TOKEN_PARAMETER + "=" +
+                       URLEncoder.encode(accessToken, StandardCharsets.UTF_8.name());
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalArgumentException("Error while encoding the access token", e);
+            }
+        }
+
+        int call() throws IOException {
+            CloseableHttpResponse httpResponse = null;
+            try {
+                httpResponse = transport.execute(httpGet);
+                int statusCode = httpResponse.getStatusLine().getStatusCode();
+                if (statusCode != HttpStatus.SC_OK) {
+                    throw new UnexpectedResponseException(statusCode, "Unexpected response status: " + statusCode +
+                                                                      " from the user info URL: " + url);
+                }
+                HttpEntity entity = httpResponse.getEntity();
+                if (entity == null) {
+                    throw new UnexpectedResponseException(statusCode, "Empty response received from the user " +
+                                                                      "info URL: " + url);
+                }
+                ResponseReader reader = transport.openReader(entity);
+                try {
+                    return UserInfoParser.parse(reader, handler);
+                } finally {
+                    bytesReceived = reader.getBytesReceived();
+                    // Closing the reader consumes the entity, which releases the connection back to the pool.
+                    IdentityIOStreamUtils.closeReader(reader);
+                }
+            } finally {
+                closeResponse(httpResponse);
+            }
+        }
+    }
+
+    /**
+     * A hedged or retried user info request, keeping the fields of the response until it wins.
+     */
+    private class BufferedUserInfo implements HedgedRequestExecutor.Attempt<BufferedUserInfo>, UserInfoFieldHandler {
+
+        private final List<String> fields = new ArrayList<>(16);
+        private final UserInfoAttempt attempt;
+
+        BufferedUserInfo(String url, String accessToken, boolean bearer, PendingRequests requests) {
+            attempt = new UserInfoAttempt(url, accessToken, bearer, requests, this);
+        }
+
+        @Override
+        public void onField(String name, String value) {
+            fields.add(name);
+            fields.add(value);
+        }
+
+        @Override
+        public BufferedUserInfo call() throws IOException {
+            attempt.call();
+            return this;
+        }
+
+        @Override
+        public void abort() {
+            attempt.httpGet.abort();
+        }
+
+        int replay(UserInfoFieldHandler handler) {
+            for (int i = 0; i < fields.size(); i += 2) {
+                handler.onField(fields.get(i), fields.get(i + 1));
+            }
+            return fields.size() / 2;
+        }
+    }
+
+    /**
+     * Maps the fields of the v2 profile to the claims of the v1 profile. The localized names replace the first name,
+     * last name and headline fields, which the v2 API returns as objects with a value per locale.
+     */
+    private static class ProfileHandler implements UserInfoFieldHandler {
+
+        private static final Map<String, String> V1_FIELDS = new HashMap<>();
+
+        static {
+            V1_FIELDS.put(LinkedInAuthenticatorConstants.LOCALIZED_FIRST_NAME,
+                          LinkedInAuthenticatorConstants.FIRST_NAME);
+            V1_FIELDS.put(LinkedInAuthenticatorConstants.LOCALIZED_LAST_NAME,
+                          LinkedInAuthenticatorConstants.LAST_NAME);
+            V1_FIELDS.put(LinkedInAuthenticatorConstants.LOCALIZED_HEADLINE,
+                          LinkedInAuthenticatorConstants.HEADLINE);
+        }
+
+        private final CompactClaimMap.Builder claims;
+
+        ProfileHandler(CompactClaimMap.Builder claims) {
+            this.claims = claims;
+        }
+
+        @Override
+        public void onField(String name, String value) {
+            String field = V1_FIELDS.get(name);
+            if (field != null) {
+                claims.put(ClaimMappingRegistry.LINKEDIN.getClaimMapping(field), value);
+            } else if (!V1_FIELDS.containsValue(name)) {
+                claims.put(ClaimMappingRegistry.LINKEDIN.getClaimMapping(name), value);
+            }
+        }
+    }
+
+    /**
+     * Finds the first email address in the v2 email address response, in which each element holds an email address
+     * handle.
+     */
+    private static class EmailAddressHandler implements UserInfoFieldHandler {
+
+        private String elements;
+        private String handle;
+        private String emailAddress;
+
+        @Override
+        public void onField(String name, String value) {
+            if (LinkedInAuthenticatorConstants.ELEMENTS.equals(name)) {
+                elements = value;
+            } else if (LinkedInAuthenticatorConstants.EMAIL_ADDRESS_HANDLE.equals(name) && handle == null) {
+                handle = value;
+            } else if (LinkedInAuthenticatorConstants.EMAIL_ADDRESS.equals(name) && emailAddress == null) {
+                emailAddress = value;
+            }
+        }
+
+        String getEmailAddress() throws IOException {
+            if (elements != null) {
+                UserInfoParser.parseElements(new StringReader(elements), this);
+            }
+            if (handle != null) {
+                UserInfoParser.parse(new StringReader(handle), this);
+            }
+            return emailAddress;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.oltu.oauth2.client.HttpClient;
+import org.apache.oltu.oauth2.client.request.OAuthClientRequest;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponse;
+import org.apache.oltu.oauth2.client.response.OAuthClientResponseFactory;
+import org.apache.oltu.oauth2.common.OAuth;
+import org.apache.oltu.oauth2.common.exception.OAuthProblemException;
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Oltu {@link HttpClient} that sends the OAuth requests over the pooled {@link LinkedInHttpTransport}.
+ */
+public class PooledOAuthHttpClient implements HttpClient {
+
+    private final LinkedInHttpTransport transport;
+
+    public PooledOAuthHttpClient(LinkedInHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public <T extends OAuthClientResponse> T execute(OAuthClientRequest request, Map<String, String> headers,
+                                                     String requestMethod, Class<T> responseClass)
+            throws OAuthSystemException, OAuthProblemException {
+        HttpRequestBase httpRequest;
+        if (OAuth.HttpMethod.POST.equals(requestMethod)) {
+            HttpPost post = new HttpPost(request.getLocationUri());
+            if (request.getBody() != null) {
+                post.setEntity(new StringEntity(request.getBody(), ContentType.APPLICATION_FORM_URLENCODED));
+            }
+            httpRequest = post;
+        } else {
+            httpRequest = new HttpGet(request.getLocationUri());
+        }
+        setHeaders(httpRequest, headers);
+        setHeaders(httpRequest, request.getHeaders());
+
+        String body = null;
+        String contentType = null;
+        int responseCode;
+        try (CloseableHttpResponse response = transport.execute(httpRequest)) {
+            responseCode = response.getStatusLine().getStatusCode();
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                if (entity.getContentType() != null) {
+                    contentType = entity.getContentType().getValue();
+                }
+                // the token response is UTF-8 JSON, limited to the maximum response size
+                ResponseReader reader = transport.openReader(entity);
+                try {
+                    body = reader.readFully();
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new OAuthSystemException(e);
+        }
+        return OAuthClientResponseFactory.createCustomResponse(body, contentType, responseCode, responseClass);
+    }
+
+    private static void setHeaders(HttpRequestBase httpRequest, Map<String, String> headers) {
+        if (headers == null) {
+            return;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+    }
+
+    /**
+     * The connection pool is owned by the {@link LinkedInHttpTransport}, so nothing is released here.
+     */
+    @Override
+    public void shutdown() {
+    }
+}
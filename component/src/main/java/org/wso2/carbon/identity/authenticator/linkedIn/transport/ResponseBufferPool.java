@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of the buffers which decode the LinkedIn responses. A response borrows its buffers while it is read,
+ * so the read path allocates no buffers once the pool is warm; buffers beyond the pool size are left to the garbage
+ * collector.
+ */
+public class ResponseBufferPool {
+
+    private static final int BYTE_BUFFER_SIZE = 8192;
+    private static final int CHAR_BUFFER_SIZE = 4096;
+
+    private final ArrayBlockingQueue<Buffers> pool;
+
+    public ResponseBufferPool(int size) {
+        pool = new ArrayBlockingQueue<>(Math.max(1, size));
+    }
+
+    /**
+     * Borrow a set of buffers, creating one if the pool is empty.
+     *
+     * @return buffers, cleared
+     */
+    public Buffers acquire() {
+        Buffers buffers = pool.poll();
+        if (buffers == null) {
+            return new Buffers();
+        }
+        buffers.clear();
+        return buffers;
+    }
+
+    /**
+     * Return buffers to the pool.
+     *
+     * @param buffers the buffers
+     */
+    public void release(Buffers buffers) {
+        pool.offer(buffers);
+    }
+
+    /**
+     * The byte and char buffers and the UTF-8 decoder of one response.
+     */
+    public static class Buffers {
+
+        private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private Buffers() {
+            clear();
+        }
+
+        public ByteBuffer getBytes() {
+            return bytes;
+        }
+
+        public CharBuffer getChars() {
+            return chars;
+        }
+
+        public CharsetDecoder getDecoder() {
+            return decoder;
+        }
+
+        private void clear() {
+            bytes.clear();
+            // the char buffer starts empty, ready to be read from
+            chars.clear();
+            chars.flip();
+            decoder.reset();
+        }
+    }
+}
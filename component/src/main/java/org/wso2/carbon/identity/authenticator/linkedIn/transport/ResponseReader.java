@@ -0,0 +1,156 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.BoundedInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+
+/**
+ * Reads the UTF-8 body of a LinkedIn response through buffers borrowed from the {@link ResponseBufferPool}, which
+ * are returned when the reader is closed. Closing the reader also closes the content stream, which releases the
+ * connection back to the pool.
+ */
+public class ResponseReader extends Reader {
+
+    private final BoundedInputStream received;
+    private final InputStream content;
+    private final ResponseBufferPool bufferPool;
+    private ResponseBufferPool.Buffers buffers;
+    private boolean endOfStream;
+    private boolean flushed;
+
+    ResponseReader(BoundedInputStream received, InputStream content, ResponseBufferPool bufferPool) {
+        this.received = received;
+        this.content = content;
+        this.bufferPool = bufferPool;
+        this.buffers = bufferPool.acquire();
+    }
+
+    /**
+     * Get the number of bytes received so far, before decompression.
+     *
+     * @return bytes received
+     */
+    public long getBytesReceived() {
+        return received.getCount();
+    }
+
+    @Override
+    public int read() throws IOException {
+        CharBuffer chars = getBuffers().getChars();
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        CharBuffer chars = getBuffers().getChars();
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int read = Math.min(len, chars.remaining());
+        chars.get(cbuf, off, read);
+        return read;
+    }
+
+    /**
+     * Read the rest of the body into a string.
+     *
+     * @return the body
+     * @throws IOException
+     */
+    public String readFully() throws IOException {
+        StringBuilder body = new StringBuilder(256);
+        CharBuffer chars = getBuffers().getChars();
+        while (chars.hasRemaining() || fill()) {
+            body.append(chars);
+            chars.position(chars.limit());
+        }
+        return body.toString();
+    }
+
+    /**
+     * Decode more chars into the char buffer.
+     *
+     * @return false at the end of the body
+     */
+    private boolean fill() throws IOException {
+        ResponseBufferPool.Buffers current = getBuffers();
+        ByteBuffer bytes = current.getBytes();
+        CharBuffer chars = current.getChars();
+        chars.clear();
+        try {
+            while (chars.position() == 0 && !flushed) {
+                if (!endOfStream) {
+                    int read = content.read(bytes.array(), bytes.position(), bytes.remaining());
+                    if (read < 0) {
+                        endOfStream = true;
+                    } else {
+                        bytes.position(bytes.position() + read);
+                    }
+                }
+                bytes.flip();
+                CoderResult result = current.getDecoder().decode(bytes, chars, endOfStream);
+                bytes.compact();
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (endOfStream && result.isUnderflow()) {
+                    flushed = current.getDecoder().flush(chars).isUnderflow();
+                }
+            }
+        } finally {
+            chars.flip();
+        }
+        return chars.hasRemaining();
+    }
+
+    private ResponseBufferPool.Buffers getBuffers() throws IOException {
+        if (buffers == null) {
+            throw new IOException("The response reader is closed");
+        }
+        return buffers;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffers == null) {
+            return;
+        }
+        ResponseBufferPool.Buffers released = buffers;
+        buffers = null;
+        try {
+            content.close();
+        } finally {
+            bufferPool.release(released);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coalesces concurrent calls with the same key. The first caller runs the call on its own thread, while callers
+ * arriving before it completes wait for it and share its outcome instead of repeating the call.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run the call, or wait for the call in flight with the same key.
+     *
+     * @param key  the key of the call
+     * @param call the call
+     * @return the result of the call
+     * @throws AuthenticationFailedException if the call fails
+     */
+    public V execute(K key, Callable<V> call) throws AuthenticationFailedException {
+        FutureTask<V> task = new FutureTask<>(call);
+        FutureTask<V> existing = inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return getResult(task, false);
+        }
+        return getResult(existing, true);
+    }
+
+    /**
+     * Get the number of calls in flight.
+     *
+     * @return number of calls in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private V getResult(FutureTask<V> task, boolean shared) throws AuthenticationFailedException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationFailedException("Interrupted while waiting for the LinkedIn response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthenticationFailedException) {
+                if (shared) {
+                    // the exception of the first caller is not rethrown on another thread as is
+                    throw new AuthenticationFailedException(cause.getMessage(), cause);
+                }
+                throw (AuthenticationFailedException) cause;
+            }
+            throw new AuthenticationFailedException("Error while processing the LinkedIn callback", cause);
+        }
+    }
+}
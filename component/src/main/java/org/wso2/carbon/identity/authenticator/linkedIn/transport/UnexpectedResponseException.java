@@ -0,0 +1,51 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+
+/**
+ * Thrown when LinkedIn responds with an unexpected status or without a body.
+ */
+public class UnexpectedResponseException extends IOException {
+
+    private static final long serialVersionUID = 2918365530140327694L;
+
+    private final int statusCode;
+
+    public UnexpectedResponseException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Check whether the same request may succeed when it is sent again.
+     *
+     * @return true for server errors and throttled requests
+     */
+    public boolean isTransient() {
+        return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || statusCode == 429;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.authenticator.linkedIn.internal.LinkedInAuthenticatorDataHolder;
+import org.wso2.carbon.identity.authenticator.linkedIn.state.StateSigner;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransport;
+import org.wso2.carbon.identity.authenticator.linkedIn.transport.LinkedInHttpTransportConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Checks the bytes a login allocates against the budgets in {@code allocation-budgets.properties}. The allocations
+ * are measured with the thread allocation counters of the JVM, which only count the calling thread. The test
+ * therefore pins the synchronous path, in which every step of the login runs on the calling thread: the default
+ * callback execution mode, the v1 API and no hedging or retries of the user info request. The async mode, hedged
+ * and retried requests and the v2 email address request run on pool threads whose allocations would not be counted.
+ */
+public class LinkedInAuthenticatorAllocationTest {
+
+    private static final String BUDGETS_RESOURCE = "/allocation-budgets.properties";
+    private static final String INITIATE = "initiateAuthenticationRequest";
+    private static final String CAN_HANDLE = "canHandle";
+    private static final String PROCESS = "processAuthenticationResponse";
+    private static final String LOGIN = "login";
+    private static final String[] STEPS = {INITIATE, CAN_HANDLE, PROCESS, LOGIN};
+    private static final int WARMUP = 1000;
+    private static final int ITERATIONS = 100;
+    private static final int ROUNDS = 5;
+    private static final String PROFILE = "{\"emailAddress\":\"jane.doe@example.com\",\"firstName\":\"Jane\"," +
+                                          "\"headline\":\"Senior Software Engineer at Example Corp\"," +
+                                          "\"id\":\"1R2RtA-2Xy\",\"industry\":\"Computer Software\"," +
+                                          "\"lastName\":\"Doe\"}";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private LinkedInHttpTransport transport;
+    private StateSigner stateSigner;
+    private Map<String, String> authenticatorProperties;
+    private ExternalIdPConfig externalIdPConfig;
+    private final LinkedInAuthenticator authenticator = new LinkedInAuthenticator();
+    private final AtomicLong sequence = new AtomicLong();
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/uas/oauth2/accessToken", new JsonHandler() {
+            @Override
+            protected String body() {
+                return "{\"access_token\":\"AQXdSP_W41-" + sequence.incrementAndGet() + "\",\"expires_in\":5183999}";
+            }
+        });
+        server.createContext("/v1/people/", new JsonHandler() {
+            @Override
+            protected String body() {
+                return PROFILE;
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        transport = new LinkedInHttpTransport(
+                LinkedInHttpTransportConfig.fromParameters(Collections.<String, String>emptyMap()));
+        stateSigner = new StateSigner("allocation-test-signing-key".getBytes(StandardCharsets.UTF_8), 900000L);
+        LinkedInAuthenticatorDataHolder.getInstance().setHttpTransport(transport);
+        LinkedInAuthenticatorDataHolder.getInstance().setStateSigner(stateSigner);
+
+        authenticatorProperties = new HashMap<>();
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_ID, "77x7ksu1g2c9pd");
+        authenticatorProperties.put(OIDCAuthenticatorConstants.CLIENT_SECRET, "Z9sJpw3Ty8Q1vX0c");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.CALLBACK_URL, "https://localhost:9443/commonauth");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.OAUTH2_AUTHZ_URL,
+                                    baseUrl + "/uas/oauth2/authorization");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.OAUTH2_TOKEN_URL,
+                                    baseUrl + "/uas/oauth2/accessToken");
+        authenticatorProperties.put(LinkedInAuthenticatorConstants.USER_INFO_URL,
+                                    baseUrl + "/v1/people/~:(id,first-name,last-name,industry,headline," +
+                                    "email-address)?format=json");
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName("LinkedIn");
+        identityProvider.setClaimConfig(new ClaimConfig());
+        externalIdPConfig = new ExternalIdPConfig(identityProvider);
+
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        LinkedInAuthenticatorDataHolder.getInstance().setHttpTransport(null);
+        LinkedInAuthenticatorDataHolder.getInstance().setStateSigner(null);
+        transport.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testLoginAllocationsAreWithinBudgets() throws Exception {
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new SkipException("The JVM does not measure the memory allocated by a thread");
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        // work moved to another thread would not be counted
+        assertNull(LinkedInAuthenticatorDataHolder.getInstance().getCallbackExecutor());
+        assertNull(transport.getHedgedRequestExecutor());
+        assertNull(authenticatorProperties.get(LinkedInAuthenticatorConstants.API_VERSION));
+
+        Properties budgets = loadBudgets();
+        run(WARMUP);
+        long[][] rounds = new long[ROUNDS][];
+        for (int i = 0; i < ROUNDS; i++) {
+            rounds[i] = run(ITERATIONS);
+        }
+        StringBuilder overBudget = new StringBuilder();
+        for (int step = 0; step < STEPS.length; step++) {
+            long[] allocated = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                allocated[i] = rounds[i][step] / ITERATIONS;
+            }
+            Arrays.sort(allocated);
+            long median = allocated[ROUNDS / 2];
+            long budget = Long.parseLong(budgets.getProperty(STEPS[step]).trim());
+            if (median > budget) {
+                overBudget.append(' ').append(STEPS[step]).append(" allocates ").append(median)
+                        .append(" bytes, over its budget of ").append(budget).append('.');
+            }
+        }
+        assertTrue(overBudget.length() == 0, "Login allocations exceed the budgets in " +
+                                             BUDGETS_RESOURCE.substring(1) + "." + overBudget +
+                                             " Reduce the allocations or, if the increase is intended, raise " +
+                                             "the budgets.");
+    }
+
+    /**
+     * Run logins and measure the bytes allocated by each step on the calling thread.
+     *
+     * @param iterations number of logins
+     * @return the bytes allocated by all logins, for each of {@link #STEPS}
+     */
+    private long[] run(int iterations) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        HttpServletRequest initiateRequest = request(Collections.<String, String>emptyMap());
+        HttpServletResponse response = response();
+        long[] allocated = new long[STEPS.length];
+        for (int i = 0; i < iterations; i++) {
+            AuthenticationContext context = new AuthenticationContext();
+            context.setContextIdentifier(UUID.randomUUID().toString());
+            context.setAuthenticatorProperties(authenticatorProperties);
+            context.setExternalIdP(externalIdPConfig);
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put(LinkedInAuthenticatorConstants.OAUTH2_GRANT_TYPE_CODE, "AQTdWJe4tRz" + i);
+            parameters.put(LinkedInAuthenticatorConstants.OAUTH2_PARAM_STATE, stateSigner.sign(
+                    context.getContextIdentifier() + "," + LinkedInAuthenticatorConstants.LINKEDIN_LOGIN_TYPE));
+            HttpServletRequest callbackRequest = request(parameters);
+
+            long start = threadMXBean.getThreadAllocatedBytes(threadId);
+            authenticator.initiateAuthenticationRequest(initiateRequest, response, context);
+            long initiated = threadMXBean.getThreadAllocatedBytes(threadId);
+            boolean canHandle = authenticator.canHandle(callbackRequest);
+            long handled = threadMXBean.getThreadAllocatedBytes(threadId);
+            authenticator.processAuthenticationResponse(callbackRequest, response, context);
+            long processed = threadMXBean.getThreadAllocatedBytes(threadId);
+
+            assertTrue(canHandle);
+            assertNotNull(context.getSubject());
+            allocated[0] += initiated - start;
+            allocated[1] += handled - initiated;
+            allocated[2] += processed - handled;
+            allocated[3] += processed - start;
+        }
+        return allocated;
+    }
+
+    private static Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        InputStream inputStream = LinkedInAuthenticatorAllocationTest.class.getResourceAsStream(BUDGETS_RESOURCE);
+        assertNotNull(inputStream, "Allocation budgets " + BUDGETS_RESOURCE + " not found");
+        try {
+            budgets.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        for (String step : STEPS) {
+            assertNotNull(budgets.getProperty(step), "No allocation budget for " + step);
+        }
+        return budgets;
+    }
+
+    private static HttpServletRequest request(Map<String, String> parameters) {
+        final Map<String, String[]> parameterMap = new HashMap<>();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            parameterMap.put(parameter.getKey(), new String[]{parameter.getValue()});
+        }
+        return (HttpServletRequest) Proxy.newProxyInstance(LinkedInAuthenticatorAllocationTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getParameter":
+                                String[] values = parameterMap.get(args[0]);
+                                return values != null ? values[0] : null;
+                            case "getParameterValues":
+                                return parameterMap.get(args[0]);
+                            case "getParameterMap":
+                                return parameterMap;
+                            case "getParameterNames":
+                                return Collections.enumeration(parameterMap.keySet());
+                            case "getMethod":
+                                return "GET";
+                            default:
+                                return defaultValue(method);
+                        }
+                    }
+                });
+    }
+
+    private static HttpServletResponse response() {
+        return (HttpServletResponse) Proxy.newProxyInstance(LinkedInAuthenticatorAllocationTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return defaultValue(method);
+                    }
+                });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Stand-in for a LinkedIn endpoint returning a json body.
+     */
+    private abstract static class JsonHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                InputStream requestBody = exchange.getRequestBody();
+                byte[] buffer = new byte[1024];
+                while (requestBody.read(buffer) != -1) {
+                    // discard the request body so that the connection can be reused
+                }
+                byte[] response = body().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(response);
+                outputStream.close();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        protected abstract String body();
+    }
+}
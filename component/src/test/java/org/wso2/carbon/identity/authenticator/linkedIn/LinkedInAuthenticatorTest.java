@@ -0,0 +1,95 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+import org.wso2.carbon.identity.application.authenticator.oidc.OIDCAuthenticatorConstants;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.UserInfoProjection;
+import org.wso2.carbon.identity.authenticator.linkedIn.config.LinkedInIdpConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class LinkedInAuthenticatorTest {
+
+    @Test
+    public void testUserInfoFieldsAreProjectedOnV1() throws AuthenticationFailedException {
+        LinkedInAuthenticator authenticator = new LinkedInAuthenticator();
+        Map<String, String> properties = properties(null);
+
+        LinkedInIdpConfig idpConfig = authenticator.getIdpConfig(context(properties, claimConfig("firstName")));
+        assertEquals(idpConfig.getUserInfoUrl(), "https://api.linkedin.com/v1/people/~:(first-name,id)?format=json");
+
+        // the fields follow the claim mappings
+        assertNotSame(authenticator.getIdpConfig(context(properties, claimConfig("lastName"))), idpConfig);
+    }
+
+    @Test
+    public void testUserInfoFieldsAreIgnoredOnV2() throws AuthenticationFailedException {
+        LinkedInAuthenticator authenticator = new LinkedInAuthenticator();
+        Map<String, String> properties = properties(LinkedInAuthenticatorConstants.API_VERSION_V2);
+
+        LinkedInIdpConfig idpConfig = authenticator.getIdpConfig(context(properties, claimConfig("firstName")));
+        assertEquals(idpConfig.getUserInfoUrl(), LinkedInAuthenticatorConstants.LINKEDIN_V2_PROFILE_ENDPOINT);
+
+        // nothing is derived from the claim mappings, so changing them does not recompile the configuration
+        assertSame(authenticator.getIdpConfig(context(properties, claimConfig("lastName"))), idpConfig);
+    }
+
+    private static Map<String, String> properties(String apiVersion) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(OIDCAuthenticatorConstants.CLIENT_ID, "77x7ksu1g2c9pd");
+        properties.put(OIDCAuthenticatorConstants.CLIENT_SECRET, "Z9sJpw3Ty8Q1vX0c");
+        properties.put(LinkedInAuthenticatorConstants.CALLBACK_URL, "https://localhost:9443/commonauth");
+        properties.put(LinkedInAuthenticatorConstants.USER_INFO_FIELDS, UserInfoProjection.AUTO);
+        if (apiVersion != null) {
+            properties.put(LinkedInAuthenticatorConstants.API_VERSION, apiVersion);
+        }
+        return properties;
+    }
+
+    private static AuthenticationContext context(Map<String, String> properties, ClaimConfig claimConfig) {
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName("LinkedIn");
+        identityProvider.setClaimConfig(claimConfig);
+        AuthenticationContext context = new AuthenticationContext();
+        context.setTenantDomain("carbon.super");
+        context.setAuthenticatorProperties(properties);
+        context.setExternalIdP(new ExternalIdPConfig(identityProvider));
+        return context;
+    }
+
+    private static ClaimConfig claimConfig(String field) {
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setClaimMappings(new ClaimMapping[]{
+                ClaimMapping.build("http://wso2.org/claims/" + field, "http://wso2.org/linkedin/claims/" + field, null,
+                                   false)});
+        return claimConfig;
+    }
+}
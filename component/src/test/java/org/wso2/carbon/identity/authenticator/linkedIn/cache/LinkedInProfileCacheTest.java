@@ -0,0 +1,203 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class LinkedInProfileCacheTest {
+
+    private static final String SCOPE = ProfileKey.scope("carbon.super", "LinkedIn",
+            "https://api.linkedin.com/v1/people/~:(id,first-name)?format=json", null);
+    private static final String OTHER_SCOPE = ProfileKey.scope("carbon.super", "LinkedIn-v2",
+            "https://api.linkedin.com/v2/me", "https://api.linkedin.com/v2/emailAddress");
+
+    @Test
+    public void testHitWithinScope() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("token"), claims("m1", "Jane"));
+
+        Map<ClaimMapping, String> cached = cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("token"));
+        assertEquals(cached.get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)), "Jane");
+        assertEquals(cache.getHitCount(), 1);
+    }
+
+    @Test
+    public void testScopesDoNotShareProfiles() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        String tokenHash = LinkedInProfileCache.hashToken("token");
+        cache.put(new ProfileKey(SCOPE, "m1"), tokenHash, claims("m1", "Jane"));
+
+        assertNull(cache.getByTokenHash(OTHER_SCOPE, tokenHash));
+
+        cache.put(new ProfileKey(OTHER_SCOPE, "m1"), tokenHash, claims("m1", "Janet"));
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getByTokenHash(SCOPE, tokenHash).get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)),
+                     "Jane");
+        assertEquals(cache.getByTokenHash(OTHER_SCOPE, tokenHash)
+                             .get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)), "Janet");
+    }
+
+    @Test
+    public void testUnknownTokenMisses() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("token"), claims("m1", "Jane"));
+
+        assertNull(cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("another-token")));
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testExpiredProfileIsEvicted() throws InterruptedException {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 50);
+        String tokenHash = LinkedInProfileCache.hashToken("token");
+        cache.put(new ProfileKey(SCOPE, "m1"), tokenHash, claims("m1", "Jane"));
+
+        Thread.sleep(100);
+        assertNull(cache.getByTokenHash(SCOPE, tokenHash));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedProfileIsEvicted() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(2, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("t1"), claims("m1", "Jane"));
+        cache.put(new ProfileKey(SCOPE, "m2"), LinkedInProfileCache.hashToken("t2"), claims("m2", "John"));
+        // reading m1 makes m2 the least recently used profile
+        cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("t1"));
+        cache.put(new ProfileKey(SCOPE, "m3"), LinkedInProfileCache.hashToken("t3"), claims("m3", "Joan"));
+
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getEvictionCount(), 1);
+        assertNull(cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("t2")));
+        assertEquals(cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("t1"))
+                             .get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)), "Jane");
+    }
+
+    @Test
+    public void testOnlyReadProfilesAreStale() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("t1"), claims("m1", "Jane"));
+        cache.put(new ProfileKey(SCOPE, "m2"), LinkedInProfileCache.hashToken("t2"), claims("m2", "John"));
+
+        assertTrue(cache.getStaleProfiles(0, 10).isEmpty());
+
+        cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("t2"));
+        assertEquals(cache.getStaleProfiles(0, 10), Collections.singletonList(new ProfileKey(SCOPE, "m2")));
+        // selecting a profile for a refresh clears its read mark
+        assertTrue(cache.getStaleProfiles(0, 10).isEmpty());
+    }
+
+    @Test
+    public void testRecentProfilesAreNotStale() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("t1"), claims("m1", "Jane"));
+        cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("t1"));
+
+        assertTrue(cache.getStaleProfiles(30000, 10).isEmpty());
+        assertEquals(cache.getStaleProfiles(0, 10).size(), 1);
+    }
+
+    @Test
+    public void testRefreshKeepsExpiry() throws InterruptedException {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 100);
+        String tokenHash = LinkedInProfileCache.hashToken("token");
+        ProfileKey key = new ProfileKey(SCOPE, "m1");
+        cache.put(key, tokenHash, claims("m1", "Jane"));
+
+        Thread.sleep(60);
+        assertTrue(cache.refresh(key, claims("m1", "Janet")));
+        assertEquals(cache.getByTokenHash(SCOPE, tokenHash).get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)),
+                     "Janet");
+
+        Thread.sleep(60);
+        assertNull(cache.getByTokenHash(SCOPE, tokenHash));
+    }
+
+    @Test
+    public void testRefreshDoesNotAddBackEvictedProfiles() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        ProfileKey key = new ProfileKey(SCOPE, "m1");
+        cache.put(key, LinkedInProfileCache.hashToken("token"), claims("m1", "Jane"));
+        cache.clear();
+
+        assertFalse(cache.refresh(key, claims("m1", "Janet")));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testCachedClaimsAreACopy() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        Map<ClaimMapping, String> claims = claims("m1", "Jane");
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("token"), claims);
+        claims.put(mapping(LinkedInAuthenticatorConstants.FIRST_NAME), "Changed");
+
+        assertEquals(cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("token"))
+                             .get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)), "Jane");
+    }
+
+    @Test
+    public void testClear() {
+        LinkedInProfileCache cache = new LinkedInProfileCache(10, 60000);
+        cache.put(new ProfileKey(SCOPE, "m1"), LinkedInProfileCache.hashToken("token"), claims("m1", "Jane"));
+        cache.clear();
+
+        assertEquals(cache.size(), 0);
+        assertNull(cache.getByTokenHash(SCOPE, LinkedInProfileCache.hashToken("token")));
+    }
+
+    @Test
+    public void testFromParameters() {
+        assertNull(LinkedInProfileCache.fromParameters(Collections.<String, String>emptyMap()));
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(LinkedInAuthenticatorConstants.PROFILE_CACHE_ENABLED, "true");
+        assertTrue(LinkedInProfileCache.fromParameters(parameters) != null);
+    }
+
+    @Test
+    public void testHashToken() {
+        String tokenHash = LinkedInProfileCache.hashToken("AQXdSP_W41_UPs5ioT_t8HESyODB4Fqbk");
+        assertEquals(tokenHash.length(), 64);
+        assertNotEquals(tokenHash, LinkedInProfileCache.hashToken("AQXdSP_W41_UPs5ioT_t8HESyODB4Fqbl"));
+    }
+
+    private static Map<ClaimMapping, String> claims(String memberId, String firstName) {
+        Map<ClaimMapping, String> claims = new HashMap<>();
+        claims.put(mapping(LinkedInAuthenticatorConstants.USER_ID), memberId);
+        claims.put(mapping(LinkedInAuthenticatorConstants.FIRST_NAME), firstName);
+        return claims;
+    }
+
+    private static ClaimMapping mapping(String field) {
+        return ClaimMappingRegistry.LINKEDIN.getClaimMapping(field);
+    }
+}
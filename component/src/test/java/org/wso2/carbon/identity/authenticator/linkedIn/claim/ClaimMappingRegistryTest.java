@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class ClaimMappingRegistryTest {
+
+    @Test
+    public void testKnownMappingsAreShared() {
+        ClaimMappingRegistry registry = new ClaimMappingRegistry("http://dialect", "id", "headline");
+
+        ClaimMapping claimMapping = registry.getClaimMapping("id");
+
+        assertSame(registry.getClaimMapping("id"), claimMapping);
+        assertEquals(claimMapping.getRemoteClaim().getClaimUri(), "http://dialect/id");
+        assertSame(claimMapping.getLocalClaim(), claimMapping.getRemoteClaim());
+    }
+
+    @Test
+    public void testDynamicMappingsAreShared() {
+        ClaimMappingRegistry registry = new ClaimMappingRegistry("http://dialect", "id");
+
+        ClaimMapping claimMapping = registry.getClaimMapping("pictureUrl");
+
+        assertSame(registry.getClaimMapping("pictureUrl"), claimMapping);
+        assertNotSame(registry.getClaimMapping("location"), claimMapping);
+        assertEquals(claimMapping.getRemoteClaim().getClaimUri(), "http://dialect/pictureUrl");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testMappingCanNotBeModified() {
+        new ClaimMappingRegistry("http://dialect", "id").getClaimMapping("id").setRemoteClaim(new Claim());
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testDefaultValueCanNotBeModified() {
+        new ClaimMappingRegistry("http://dialect").getClaimMapping("industry").setDefaultValue("none");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testClaimCanNotBeModified() {
+        new ClaimMappingRegistry("http://dialect", "id").getClaimMapping("id").getLocalClaim()
+                .setClaimUri("http://wso2.org/claims/username");
+    }
+}
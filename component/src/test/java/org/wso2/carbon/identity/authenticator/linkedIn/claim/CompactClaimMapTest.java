@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class CompactClaimMapTest {
+
+    private final ClaimMappingRegistry registry = new ClaimMappingRegistry("http://dialect", "id", "headline");
+
+    @Test
+    public void testLookupBySharedMapping() {
+        CompactClaimMap claims = new CompactClaimMap.Builder(2)
+                .put(registry.getClaimMapping("id"), "1R2RtA")
+                .put(registry.getClaimMapping("headline"), "Engineer")
+                .build();
+
+        assertEquals(claims.size(), 2);
+        assertEquals(claims.get(registry.getClaimMapping("id")), "1R2RtA");
+        assertEquals(claims.get(registry.getClaimMapping("headline")), "Engineer");
+        assertNull(claims.get(registry.getClaimMapping("industry")));
+        assertNull(claims.get(null));
+    }
+
+    @Test
+    public void testLookupByEqualMapping() {
+        CompactClaimMap claims = new CompactClaimMap.Builder(1).put(registry.getClaimMapping("id"), "1R2RtA").build();
+
+        ClaimMapping equalMapping = ClaimMapping.build("http://dialect/id", "http://dialect/id", null, false);
+
+        assertTrue(claims.containsKey(equalMapping));
+        assertEquals(claims.get(equalMapping), "1R2RtA");
+    }
+
+    @Test
+    public void testPutReplacesValueAndGrows() {
+        CompactClaimMap.Builder builder = new CompactClaimMap.Builder(0);
+        builder.put(registry.getClaimMapping("id"), "1R2RtA");
+        builder.put(registry.getClaimMapping("headline"), "Engineer");
+        builder.put(registry.getClaimMapping("industry"), "Software");
+        builder.put(registry.getClaimMapping("id"), "3T4YuB");
+
+        CompactClaimMap claims = builder.build();
+
+        assertEquals(builder.size(), 3);
+        assertEquals(claims.size(), 3);
+        assertEquals(claims.get(registry.getClaimMapping("id")), "3T4YuB");
+        Iterator<ClaimMapping> keys = claims.keySet().iterator();
+        assertSame(keys.next(), registry.getClaimMapping("id"));
+        assertSame(keys.next(), registry.getClaimMapping("headline"));
+        assertSame(keys.next(), registry.getClaimMapping("industry"));
+        assertFalse(keys.hasNext());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(new CompactClaimMap.Builder(4).build(), CompactClaimMap.empty());
+        assertTrue(CompactClaimMap.copyOf(new HashMap<ClaimMapping, String>()).isEmpty());
+    }
+
+    @Test
+    public void testCopyOfEqualsSource() {
+        Map<ClaimMapping, String> source = new LinkedHashMap<>();
+        source.put(registry.getClaimMapping("id"), "1R2RtA");
+        source.put(registry.getClaimMapping("headline"), "Engineer");
+
+        CompactClaimMap claims = CompactClaimMap.copyOf(source);
+
+        assertEquals(claims, source);
+        assertEquals(claims.hashCode(), source.hashCode());
+        assertSame(CompactClaimMap.copyOf(claims), claims);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testPutIsUnsupported() {
+        CompactClaimMap.empty().put(registry.getClaimMapping("id"), "1R2RtA");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testIteratorRemoveIsUnsupported() {
+        Iterator<Map.Entry<ClaimMapping, String>> entries = new CompactClaimMap.Builder(1)
+                .put(registry.getClaimMapping("id"), "1R2RtA").build().entrySet().iterator();
+        entries.next();
+        entries.remove();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.claim;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+public class UserInfoParserTest {
+
+    @Test
+    public void testTopLevelFields() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int count = UserInfoParser.parse(new StringReader(
+                " {\"id\" : \"1R2RtA\", \"numConnections\": 500,\"verified\":true , \"headline\":\"Engineer\"}\n"),
+                collect(fields));
+
+        assertEquals(count, 4);
+        assertEquals(fields.get("id"), "1R2RtA");
+        assertEquals(fields.get("numConnections"), "500");
+        assertEquals(fields.get("verified"), "true");
+        assertEquals(fields.get("headline"), "Engineer");
+    }
+
+    @Test
+    public void testNullValuesAreSkipped() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int count = UserInfoParser.parse(new StringReader("{\"id\":\"1R2RtA\",\"industry\":null,\"headline\":null}"),
+                                         collect(fields));
+
+        assertEquals(count, 1);
+        assertFalse(fields.containsKey("industry"));
+        assertFalse(fields.containsKey("headline"));
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        UserInfoParser.parse(new StringReader("{\"headline\":\"\\\"Quoted\\\" \\\\ a\\/b\\n\\t\\u00e9\\u20AC\"," +
+                                              "\"na\\\"me\":\"v\"}"), collect(fields));
+
+        assertEquals(fields.get("headline"), "\"Quoted\" \\ a/b\n\t\u00e9\u20ac");
+        assertEquals(fields.get("na\"me"), "v");
+    }
+
+    @Test
+    public void testNonAsciiCharacters() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        byte[] response = "{\"firstName\":\"Zoë\",\"lastName\":\"张伟\"}".getBytes(StandardCharsets.UTF_8);
+        UserInfoParser.parse(new ByteArrayInputStream(response), response.length, collect(fields));
+
+        assertEquals(fields.get("firstName"), "Zoë");
+        assertEquals(fields.get("lastName"), "张伟");
+    }
+
+    @Test
+    public void testNestedStructuresAreReturnedAsJson() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int count = UserInfoParser.parse(new StringReader(
+                "{\"location\":{\"name\":\"Colombo } ]\",\"country\":{\"code\":\"lk\"}}," +
+                "\"positions\":[{\"title\":\"a \\\" [\"},[]],\"id\":\"1R2RtA\"}"), collect(fields));
+
+        assertEquals(count, 3);
+        assertEquals(fields.get("location"), "{\"name\":\"Colombo } ]\",\"country\":{\"code\":\"lk\"}}");
+        assertEquals(fields.get("positions"), "[{\"title\":\"a \\\" [\"},[]]");
+        assertEquals(fields.get("id"), "1R2RtA");
+    }
+
+    @Test
+    public void testEmptyResponse() throws IOException {
+        assertEquals(UserInfoParser.parse(new StringReader(""), collect(new LinkedHashMap<String, String>())), 0);
+        assertEquals(UserInfoParser.parse(new StringReader(" { } "), collect(new LinkedHashMap<String, String>())),
+                     0);
+    }
+
+    @Test
+    public void testElements() throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        int count = UserInfoParser.parseElements(new StringReader(
+                "[{\"handle\":\"urn:li:emailAddress:1\",\"handle~\":{\"emailAddress\":\"jane@example.com\"}}]"),
+                collect(fields));
+
+        assertEquals(count, 2);
+        assertEquals(fields.get("handle~"), "{\"emailAddress\":\"jane@example.com\"}");
+        assertEquals(UserInfoParser.parseElements(new StringReader("[]"),
+                                                  collect(new LinkedHashMap<String, String>())), 0);
+    }
+
+    @Test
+    public void testTruncatedResponses() {
+        String[] truncated = {
+                "{\"id\":\"1R2RtA\"",
+                "{\"id\":\"1R2R",
+                "{\"id\":",
+                "{\"id\"",
+                "{\"id\":500",
+                "{\"location\":{\"name\":\"Colombo\"",
+                "{\"headline\":\"a\\",
+                "{\"headline\":\"\\u00",
+                "[{\"id\":\"1R2RtA\"}",
+        };
+        for (String response : truncated) {
+            assertParseFails(response);
+        }
+    }
+
+    @Test
+    public void testMalformedResponses() {
+        String[] malformed = {
+                "[\"id\"]",
+                "{id:\"1R2RtA\"}",
+                "{\"id\" \"1R2RtA\"}",
+                "{\"id\":\"1R2RtA\" \"name\":\"Jane\"}",
+                "{\"id\":,\"name\":\"Jane\"}",
+                "{\"headline\":\"\\x\"}",
+                "{\"headline\":\"\\u00zz\"}",
+                "{\"location\":{\"name\":\"Colombo\"]}",
+        };
+        for (String response : malformed) {
+            assertParseFails(response);
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testResponseSizeLimit() throws IOException {
+        byte[] response = "{\"id\":\"1R2RtA\",\"headline\":\"Engineer\"}".getBytes(StandardCharsets.UTF_8);
+        UserInfoParser.parse(new ByteArrayInputStream(response), 16, collect(new LinkedHashMap<String, String>()));
+    }
+
+    private static void assertParseFails(String response) {
+        try {
+            UserInfoParser.parse(new StringReader(response), collect(new LinkedHashMap<String, String>()));
+        } catch (IOException e) {
+            return;
+        }
+        fail("Parsing " + response + " should fail");
+    }
+
+    private static UserInfoFieldHandler collect(final Map<String, String> fields) {
+        return new UserInfoFieldHandler() {
+            @Override
+            public void onField(String name, String value) {
+                fields.put(name, value);
+            }
+        };
+    }
+}
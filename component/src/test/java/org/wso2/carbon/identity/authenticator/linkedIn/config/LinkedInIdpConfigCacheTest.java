@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.config;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class LinkedInIdpConfigCacheTest {
+
+    @Test
+    public void testConfigsAreKeptPerTenant() {
+        LinkedInIdpConfigCache cache = new LinkedInIdpConfigCache(4);
+        LinkedInIdpConfig config = newConfig();
+        LinkedInIdpConfig otherConfig = newConfig();
+        cache.put("carbon.super", "LinkedIn", config);
+        cache.put("wso2.com", "LinkedIn", otherConfig);
+
+        assertSame(cache.get("carbon.super", "LinkedIn"), config);
+        assertSame(cache.get("wso2.com", "LinkedIn"), otherConfig);
+        assertNull(cache.get("carbon.super", "LinkedIn-v2"));
+        assertNull(cache.get("abc.com", "LinkedIn"));
+    }
+
+    @Test
+    public void testReplacingAConfigEvictsNothing() {
+        LinkedInIdpConfigCache cache = new LinkedInIdpConfigCache(2);
+        cache.put("carbon.super", "LinkedIn", newConfig());
+        cache.put("wso2.com", "LinkedIn", newConfig());
+        LinkedInIdpConfig updated = newConfig();
+        cache.put("carbon.super", "LinkedIn", updated);
+
+        assertEquals(cache.size(), 2);
+        assertSame(cache.get("carbon.super", "LinkedIn"), updated);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedConfigIsEvicted() throws InterruptedException {
+        LinkedInIdpConfigCache cache = new LinkedInIdpConfigCache(2);
+        cache.put("carbon.super", "LinkedIn", newConfig());
+        Thread.sleep(2);
+        cache.put("wso2.com", "LinkedIn", newConfig());
+        Thread.sleep(2);
+        // reading the first configuration makes the second the least recently used one
+        cache.get("carbon.super", "LinkedIn");
+        Thread.sleep(2);
+        cache.put("abc.com", "LinkedIn", newConfig());
+
+        assertEquals(cache.size(), 2);
+        assertNull(cache.get("wso2.com", "LinkedIn"));
+        assertNotNull(cache.get("carbon.super", "LinkedIn"));
+        assertNotNull(cache.get("abc.com", "LinkedIn"));
+    }
+
+    @Test
+    public void testClear() {
+        LinkedInIdpConfigCache cache = new LinkedInIdpConfigCache();
+        cache.put("carbon.super", "LinkedIn", newConfig());
+        cache.clear();
+
+        assertEquals(cache.size(), 0);
+        assertNull(cache.get("carbon.super", "LinkedIn"));
+    }
+
+    private static LinkedInIdpConfig newConfig() {
+        return LinkedInIdpConfigTest.newConfig(Collections.<String, String>emptyMap(), null, false);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.config;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class LinkedInIdpConfigTest {
+
+    @Test
+    public void testCompiledFromEqualProperties() {
+        LinkedInIdpConfig config = newConfig(properties("secret"), null, false);
+
+        assertTrue(config.isCompiledFrom(properties("secret"), null));
+        assertFalse(config.isCompiledFrom(properties("rotated-secret"), null));
+    }
+
+    @Test
+    public void testPropertiesWithCollidingHashesAreCompared() {
+        // "Aa" and "BB" have the same String hash, so the maps have the same hash too
+        Map<String, String> compiled = properties("secret-Aa");
+        Map<String, String> rotated = properties("secret-BB");
+        assertEquals(rotated.hashCode(), compiled.hashCode());
+
+        LinkedInIdpConfig config = newConfig(compiled, null, false);
+        assertTrue(config.isCompiledFrom(properties("secret-Aa"), null));
+        assertFalse(config.isCompiledFrom(rotated, null));
+    }
+
+    @Test
+    public void testPropertiesAreCopied() {
+        Map<String, String> properties = properties("secret");
+        LinkedInIdpConfig config = newConfig(properties, null, false);
+        properties.put("ClientSecret", "rotated-secret");
+
+        assertFalse(config.isCompiledFrom(properties, null));
+    }
+
+    @Test
+    public void testClaimConfigIgnoredWithoutDerivedFields() {
+        LinkedInIdpConfig config = newConfig(properties("secret"), claimConfig("firstName"), false);
+
+        assertTrue(config.isCompiledFrom(properties("secret"), claimConfig("lastName")));
+    }
+
+    @Test
+    public void testClaimConfigComparedByContentWithDerivedFields() {
+        LinkedInIdpConfig config = newConfig(properties("secret"), claimConfig("firstName", "headline"), true);
+
+        assertTrue(config.isCompiledFrom(properties("secret"), claimConfig("firstName", "headline")));
+        assertFalse(config.isCompiledFrom(properties("secret"), claimConfig("firstName", "industry")));
+        assertFalse(config.isCompiledFrom(properties("secret"), claimConfig("firstName")));
+        assertFalse(config.isCompiledFrom(properties("secret"), null));
+    }
+
+    @Test
+    public void testClaimConfigWithCollidingRemoteClaimsIsCompared() {
+        // the remote claim URIs differ by "Aa" and "BB", which have the same String hash
+        LinkedInIdpConfig config = newConfig(properties("secret"), claimConfig("fieldAa", "headline"), true);
+
+        assertTrue(config.isCompiledFrom(properties("secret"), claimConfig("fieldAa", "headline")));
+        assertFalse(config.isCompiledFrom(properties("secret"), claimConfig("fieldBB", "headline")));
+    }
+
+    @Test
+    public void testClaimConfigDialectAndUserClaimAreCompared() {
+        ClaimConfig compiled = claimConfig("firstName");
+        compiled.setUserClaimURI("http://wso2.org/linkedin/claims/id");
+        LinkedInIdpConfig config = newConfig(properties("secret"), compiled, true);
+
+        ClaimConfig otherUserClaim = claimConfig("firstName");
+        otherUserClaim.setUserClaimURI("http://wso2.org/linkedin/claims/emailAddress");
+        ClaimConfig localDialect = claimConfig("firstName");
+        localDialect.setUserClaimURI("http://wso2.org/linkedin/claims/id");
+        localDialect.setLocalClaimDialect(true);
+
+        assertFalse(config.isCompiledFrom(properties("secret"), otherUserClaim));
+        assertFalse(config.isCompiledFrom(properties("secret"), localDialect));
+        assertFalse(config.isCompiledFrom(properties("secret"), new ClaimConfig()));
+    }
+
+    static LinkedInIdpConfig newConfig(Map<String, String> properties, ClaimConfig claimConfig,
+                                       boolean derivedUserInfoFields) {
+        return new LinkedInIdpConfig(properties, claimConfig, properties.get("ClientId"),
+                                     properties.get("ClientSecret"), "https://localhost:9443/commonauth",
+                                     "https://www.linkedin.com/oauth/v2/accessToken",
+                                     "https://api.linkedin.com/v1/people/~?format=json", null, true, "scope",
+                                     derivedUserInfoFields, 0, 10, null);
+    }
+
+    private static Map<String, String> properties(String clientSecret) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("ClientId", "client");
+        properties.put("ClientSecret", clientSecret);
+        properties.put("callbackUrl", "https://localhost:9443/commonauth");
+        return properties;
+    }
+
+    private static ClaimConfig claimConfig(String... fields) {
+        ClaimMapping[] claimMappings = new ClaimMapping[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            claimMappings[i] = ClaimMapping.build("http://wso2.org/claims/" + fields[i],
+                                                  "http://wso2.org/linkedin/claims/" + fields[i], null, false);
+        }
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setClaimMappings(claimMappings);
+        return claimConfig;
+    }
+}
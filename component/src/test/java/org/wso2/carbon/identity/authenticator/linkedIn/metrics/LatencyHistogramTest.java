@@ -0,0 +1,131 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getMeanMillis(), 0d);
+        assertEquals(histogram.getMaxMillis(), 0d);
+        assertEquals(histogram.getPercentileMillis(0.99), 0d);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 20; micros++) {
+            histogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        assertEquals(histogram.getCount(), 20);
+        assertEquals(histogram.getPercentileMillis(0.5), 0.010);
+        assertEquals(histogram.getPercentileMillis(1), 0.020);
+        assertEquals(histogram.getMaxMillis(), 0.020);
+        assertEquals(histogram.getMeanMillis(), 0.0105, 0.0000001);
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMeanMillis(), 500.5, 0.001);
+        assertEquals(histogram.getMaxMillis(), 1000d);
+        assertWithin(histogram.getPercentileMillis(0.5), 500);
+        assertWithin(histogram.getPercentileMillis(0.9), 900);
+        assertWithin(histogram.getPercentileMillis(0.99), 990);
+        assertEquals(histogram.getPercentileMillis(1), 1000d);
+    }
+
+    @Test
+    public void testPercentileDoesNotExceedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(1234));
+
+        assertEquals(histogram.getPercentileMillis(0.5), 1234d);
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(-5);
+        histogram.recordNanos(Long.MAX_VALUE);
+
+        assertEquals(histogram.getCount(), 2);
+        assertEquals(histogram.getPercentileMillis(0.5), 0d);
+        assertEquals(histogram.getMaxMillis(), TimeUnit.NANOSECONDS.toMicros(Long.MAX_VALUE) / 1000d);
+        // Values above the range of the buckets fall into the last bucket.
+        assertTrue(histogram.getPercentileMillis(1) > TimeUnit.DAYS.toMillis(20));
+        assertTrue(histogram.getPercentileMillis(1) <= histogram.getMaxMillis());
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.reset();
+
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getMaxMillis(), 0d);
+        assertEquals(histogram.getPercentileMillis(0.5), 0d);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(thread + 1));
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(histogram.getCount(), 40000);
+        assertEquals(histogram.getMaxMillis(), 4d);
+        assertEquals(histogram.getMeanMillis(), 2.5, 0.001);
+    }
+
+    private static void assertWithin(double actual, double expected) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.0625, actual + " is not within 6.25% of " + expected);
+    }
+}
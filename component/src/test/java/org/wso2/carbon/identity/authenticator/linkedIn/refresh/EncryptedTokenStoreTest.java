@@ -0,0 +1,84 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.refresh;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.authenticator.linkedIn.cache.ProfileKey;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class EncryptedTokenStoreTest {
+
+    private static final String SCOPE = ProfileKey.scope("carbon.super", "LinkedIn",
+            "https://api.linkedin.com/v1/people/~:(id,first-name)?format=json", null);
+    private static final String OTHER_SCOPE = ProfileKey.scope("wso2.com", "LinkedIn",
+            "https://api.linkedin.com/v1/people/~:(id,first-name)?format=json", null);
+
+    @Test
+    public void testStoredTokenIsDecrypted() {
+        EncryptedTokenStore tokenStore = new EncryptedTokenStore(10);
+        tokenStore.put(new ProfileKey(SCOPE, "m1"), "AQXdSP_W41_UPs5ioT_t8HESyODB4Fqbk",
+                       System.currentTimeMillis() + 60000, "https://api.linkedin.com/v1/people/~", null);
+
+        EncryptedTokenStore.StoredToken storedToken = tokenStore.get(new ProfileKey(SCOPE, "m1"));
+        assertEquals(tokenStore.decrypt(storedToken), "AQXdSP_W41_UPs5ioT_t8HESyODB4Fqbk");
+        assertEquals(storedToken.getUserInfoUrl(), "https://api.linkedin.com/v1/people/~");
+        assertNull(storedToken.getEmailAddressUrl());
+    }
+
+    @Test
+    public void testTokensAreScoped() {
+        EncryptedTokenStore tokenStore = new EncryptedTokenStore(10);
+        long expiryTime = System.currentTimeMillis() + 60000;
+        tokenStore.put(new ProfileKey(SCOPE, "m1"), "token-1", expiryTime, "https://idp-1", null);
+        tokenStore.put(new ProfileKey(OTHER_SCOPE, "m1"), "token-2", expiryTime, "https://idp-2", null);
+
+        assertEquals(tokenStore.size(), 2);
+        assertEquals(tokenStore.decrypt(tokenStore.get(new ProfileKey(SCOPE, "m1"))), "token-1");
+        assertEquals(tokenStore.decrypt(tokenStore.get(new ProfileKey(OTHER_SCOPE, "m1"))), "token-2");
+
+        tokenStore.remove(new ProfileKey(SCOPE, "m1"));
+        assertNull(tokenStore.get(new ProfileKey(SCOPE, "m1")));
+        assertEquals(tokenStore.decrypt(tokenStore.get(new ProfileKey(OTHER_SCOPE, "m1"))), "token-2");
+    }
+
+    @Test
+    public void testExpiredTokenIsRemoved() {
+        EncryptedTokenStore tokenStore = new EncryptedTokenStore(10);
+        tokenStore.put(new ProfileKey(SCOPE, "m1"), "token", System.currentTimeMillis() - 1, "https://idp", null);
+
+        assertNull(tokenStore.get(new ProfileKey(SCOPE, "m1")));
+        assertEquals(tokenStore.size(), 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsEvicted() {
+        EncryptedTokenStore tokenStore = new EncryptedTokenStore(2);
+        long expiryTime = System.currentTimeMillis() + 60000;
+        tokenStore.put(new ProfileKey(SCOPE, "m1"), "token-1", expiryTime, "https://idp", null);
+        tokenStore.put(new ProfileKey(SCOPE, "m2"), "token-2", expiryTime, "https://idp", null);
+        tokenStore.get(new ProfileKey(SCOPE, "m1"));
+        tokenStore.put(new ProfileKey(SCOPE, "m3"), "token-3", expiryTime, "https://idp", null);
+
+        assertEquals(tokenStore.size(), 2);
+        assertNull(tokenStore.get(new ProfileKey(SCOPE, "m2")));
+        assertEquals(tokenStore.decrypt(tokenStore.get(new ProfileKey(SCOPE, "m1"))), "token-1");
+    }
+}
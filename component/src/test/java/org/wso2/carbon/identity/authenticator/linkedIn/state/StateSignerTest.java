@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.state;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class StateSignerTest {
+
+    private static final String STATE = "8f2c1c0e-51d4-4bd4-a7a3-3b5b0c6c3d1e,linkedin";
+
+    @Test
+    public void testSignedStateIsVerified() {
+        StateSigner stateSigner = newStateSigner("key", 60000);
+        String signedState = stateSigner.sign(STATE);
+
+        assertTrue(signedState.startsWith(STATE + ","));
+        assertTrue(stateSigner.verify(signedState));
+    }
+
+    @Test
+    public void testStateSignedWithTheSameKeyIsVerifiedByAnotherSigner() {
+        String signedState = newStateSigner("cluster-key", 60000).sign(STATE);
+
+        assertTrue(newStateSigner("cluster-key", 60000).verify(signedState));
+        assertFalse(newStateSigner("other-key", 60000).verify(signedState));
+    }
+
+    @Test
+    public void testExpiredStateIsRejected() {
+        StateSigner stateSigner = newStateSigner("key", -2000);
+
+        assertFalse(stateSigner.verify(stateSigner.sign(STATE)));
+    }
+
+    @Test
+    public void testTamperedStateIsRejected() {
+        StateSigner stateSigner = newStateSigner("key", 60000);
+        String signedState = stateSigner.sign(STATE);
+        int expiryStart = signedState.lastIndexOf(',');
+        int signatureStart = signedState.lastIndexOf('.');
+
+        // another context identifier
+        assertFalse(stateSigner.verify("9" + signedState.substring(1)));
+        // a later expiry
+        assertFalse(stateSigner.verify(signedState.substring(0, expiryStart + 1) + "zzzzzz" +
+                                       signedState.substring(signatureStart)));
+        // another signature
+        char last = signedState.charAt(signedState.length() - 1);
+        assertFalse(stateSigner.verify(signedState.substring(0, signedState.length() - 1) +
+                                       (last == '0' ? '1' : '0')));
+    }
+
+    @Test
+    public void testMalformedStatesAreRejected() {
+        StateSigner stateSigner = newStateSigner("key", 60000);
+        String signedState = stateSigner.sign(STATE);
+
+        assertFalse(stateSigner.verify(null));
+        assertFalse(stateSigner.verify(""));
+        assertFalse(stateSigner.verify(STATE));
+        assertFalse(stateSigner.verify(signedState.substring(0, signedState.length() - 1)));
+        assertFalse(stateSigner.verify(signedState.replace('.', '-')));
+        assertFalse(stateSigner.verify(signedState.substring(0, signedState.length() - 1) + "g"));
+        assertFalse(stateSigner.verify(signedState.substring(signedState.lastIndexOf(',') + 1)));
+        StringBuilder longState = new StringBuilder();
+        while (longState.length() <= 512) {
+            longState.append(STATE);
+        }
+        assertFalse(stateSigner.verify(stateSigner.sign(longState.toString())));
+    }
+
+    @Test
+    public void testFromParametersRequiresASigningKey() {
+        assertNull(StateSigner.fromParameters(Collections.<String, String>emptyMap()));
+        assertNull(StateSigner.fromParameters(
+                Collections.singletonMap(LinkedInAuthenticatorConstants.STATE_SIGNING_KEY, "  ")));
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(LinkedInAuthenticatorConstants.STATE_SIGNING_KEY, " cluster-key ");
+        StateSigner stateSigner = StateSigner.fromParameters(parameters);
+
+        assertNotNull(stateSigner);
+        assertTrue(newStateSigner("cluster-key", 60000).verify(stateSigner.sign(STATE)));
+    }
+
+    private static StateSigner newStateSigner(String key, long validity) {
+        return new StateSigner(key.getBytes(StandardCharsets.UTF_8), validity);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void testStartsAtMaximum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(50, 1000, 3);
+        for (int i = 0; i < 19; i++) {
+            timeout.recordLatency(100);
+        }
+
+        assertEquals(timeout.getTimeout(), 1000);
+    }
+
+    @Test
+    public void testFollowsPercentileLatency() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(50, 1000, 3);
+        record(timeout, 100, 20);
+
+        assertEquals(timeout.getTimeout(), 300);
+    }
+
+    @Test
+    public void testBoundedByMinimumAndMaximum() {
+        AdaptiveTimeout fast = new AdaptiveTimeout(50, 1000, 3);
+        record(fast, 1, 20);
+        AdaptiveTimeout slow = new AdaptiveTimeout(50, 1000, 3);
+        record(slow, 900, 20);
+
+        assertEquals(fast.getTimeout(), 50);
+        assertEquals(slow.getTimeout(), 1000);
+    }
+
+    @Test
+    public void testMinimumAboveMaximum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(5000, 1000, 3);
+        record(timeout, 1, 20);
+
+        assertEquals(timeout.getTimeout(), 1000);
+    }
+
+    @Test
+    public void testTimeoutsGrowTheTimeoutBack() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(50, 1000, 3);
+        record(timeout, 100, 20);
+        assertEquals(timeout.getTimeout(), 300);
+
+        for (int i = 0; i < 64 && timeout.getTimeout() < 1000; i++) {
+            timeout.recordTimeout();
+        }
+
+        assertEquals(timeout.getTimeout(), 1000);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        LinkedInHttpTransportConfig config =
+                LinkedInHttpTransportConfig.fromParameters(Collections.<String, String>emptyMap());
+
+        assertFalse(config.isAdaptiveTimeoutEnabled());
+        assertTrue(LinkedInHttpTransportConfig.fromParameters(
+                Collections.singletonMap("AdaptiveTimeoutEnabled", "true")).isAdaptiveTimeoutEnabled());
+    }
+
+    private static void record(AdaptiveTimeout timeout, long latencyMillis, int calls) {
+        for (int i = 0; i < calls; i++) {
+            timeout.recordLatency(latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class BulkheadTest {
+
+    @Test
+    public void testPermitsUpToTheLimit() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(2, 0);
+
+        assertTrue(bulkhead.tryAcquire(0));
+        assertTrue(bulkhead.tryAcquire(0));
+        assertEquals(bulkhead.getActiveCalls(), 2);
+        assertFalse(bulkhead.tryAcquire(0));
+        assertEquals(bulkhead.getRejectedCount(), 1);
+
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire(0));
+    }
+
+    @Test
+    public void testCallWithoutAPlaceInTheQueueIsRejectedAtOnce() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        assertTrue(bulkhead.tryAcquire(0));
+
+        long start = System.currentTimeMillis();
+        assertFalse(bulkhead.tryAcquire(5000));
+
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(bulkhead.getWaitingCalls(), 0);
+    }
+
+    @Test
+    public void testQueuedCallTimesOut() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.tryAcquire(0));
+
+        long start = System.currentTimeMillis();
+        assertFalse(bulkhead.tryAcquire(50));
+
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertEquals(bulkhead.getWaitingCalls(), 0);
+        assertEquals(bulkhead.getRejectedCount(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testQueuedCallGetsReleasedPermit() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.tryAcquire(0));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> queued = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws InterruptedException {
+                    return bulkhead.tryAcquire(5000);
+                }
+            });
+            while (bulkhead.getWaitingCalls() == 0) {
+                Thread.sleep(1);
+            }
+            // the queue is full, so a further call is rejected without waiting
+            assertFalse(bulkhead.tryAcquire(5000));
+
+            bulkhead.release();
+
+            assertTrue(queued.get());
+            assertEquals(bulkhead.getActiveCalls(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHasLimits() {
+        Bulkhead bulkhead = new Bulkhead(0, -1);
+
+        assertEquals(bulkhead.getMaxConcurrentCalls(), 1);
+        assertTrue(bulkhead.hasLimits(1, 0));
+        assertFalse(bulkhead.hasLimits(2, 0));
+        assertFalse(bulkhead.hasLimits(1, 1));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int OPEN_DURATION = 50;
+
+    private static CircuitBreaker newCircuitBreaker() {
+        return new CircuitBreaker("test", new CircuitBreakerConfig(true, 50, 50, 100, 10, 4, OPEN_DURATION, 2));
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onFailure(FAST);
+        }
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker();
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onFailure(FAST);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+
+        circuitBreaker.onFailure(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker();
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(SLOW);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker();
+        for (int i = 0; i < 6; i++) {
+            circuitBreaker.onSuccess(FAST);
+        }
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure(FAST);
+        }
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+
+        // The fifth failure evicts a success, which brings the failure rate of the window to 50%.
+        circuitBreaker.onFailure(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testClosesAfterSuccessfulProbes() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(FAST);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        circuitBreaker.onSuccess(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testReopensAfterFailedProbe() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onFailure(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testReopensAfterSlowProbes() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(SLOW);
+        circuitBreaker.onSuccess(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testFastFailedProbeIsNotSlow() throws InterruptedException {
+        // one failed probe of two stays below a failure rate threshold of 60%, and is not a slow call
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", new CircuitBreakerConfig(true, 60, 50, 100, 10, 4,
+                                                                                            OPEN_DURATION, 2));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure(FAST);
+        }
+        Thread.sleep(OPEN_DURATION + 10);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testReleasedProbeCanBeReused() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        Thread.sleep(OPEN_DURATION + 10);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.releasePermission();
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testLateOutcomeWhileOpenIsIgnored() {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private static CircuitBreaker openCircuitBreaker() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker();
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure(FAST);
+        }
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        return circuitBreaker;
+    }
+}
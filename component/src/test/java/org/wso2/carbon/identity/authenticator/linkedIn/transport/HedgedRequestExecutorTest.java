@@ -0,0 +1,312 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HedgedRequestExecutorTest {
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private LinkedInMetrics metrics;
+    private LoginFlow flow;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = new ThreadPoolExecutor(0, 4, 1, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        metrics = new LinkedInMetrics(null, null);
+        flow = LoginFlow.start(metrics, null);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test(timeOut = 10000)
+    public void testFirstResponseIsReturned() throws IOException {
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.success("claims"));
+
+        assertEquals(newExecutor(config(false, 0, 0, 1000)).execute(attempts, null, flow), "claims");
+        assertEquals(attempts.created.size(), 1);
+        assertEquals(metrics.getHedgedCount(), 0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testSlowRequestIsHedged() throws IOException {
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.hang(), Outcome.success("hedged"));
+
+        assertEquals(newExecutor(config(true, 20, 0, 5000)).execute(attempts, null, flow), "hedged");
+        assertEquals(metrics.getHedgedCount(), 1);
+        // the attempt which lost the race is aborted
+        assertTrue(attempts.created.get(0).awaitAbort());
+    }
+
+    @Test(timeOut = 10000)
+    public void testTransientFailureIsRetried() throws IOException {
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.failure(new NoHttpResponseException("dropped")),
+                                                         Outcome.success("retried"));
+
+        assertEquals(newExecutor(config(false, 0, 2, 5000)).execute(attempts, null, flow), "retried");
+        assertEquals(metrics.getRetriedCount(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testRetriesAreLimited() {
+        ScriptedAttempts attempts = new ScriptedAttempts(
+                Outcome.failure(new UnexpectedResponseException(503, "unavailable")),
+                Outcome.failure(new UnexpectedResponseException(503, "still unavailable")),
+                Outcome.success("too late"));
+
+        try {
+            newExecutor(config(false, 0, 1, 5000)).execute(attempts, null, flow);
+            fail("The retries are not limited");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "still unavailable");
+        }
+        assertEquals(attempts.created.size(), 2);
+    }
+
+    @Test(timeOut = 10000)
+    public void testPermanentFailureIsNotRetried() {
+        ScriptedAttempts attempts = new ScriptedAttempts(
+                Outcome.failure(new UnexpectedResponseException(401, "unauthorized")), Outcome.success("retried"));
+
+        try {
+            newExecutor(config(false, 0, 2, 5000)).execute(attempts, null, flow);
+            fail("A permanent failure is retried");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "unauthorized");
+        }
+        assertEquals(attempts.created.size(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testDeadlineAbortsPooledAttempts() {
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.hang(), Outcome.hang());
+        long start = System.nanoTime();
+
+        try {
+            newExecutor(config(true, 20, 0, 200)).execute(attempts, null, flow);
+            fail("The deadline is not applied");
+        } catch (SocketTimeoutException e) {
+            assertElapsedAbout(start, 200);
+        } catch (IOException e) {
+            fail("Unexpected failure", e);
+        }
+        for (ScriptedAttempt attempt : attempts.created) {
+            assertTrue(attempt.awaitAbort());
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testRetryBackoffBeyondDeadlineFailsAtOnce() {
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.failure(new SocketTimeoutException("read")),
+                                                         Outcome.success("too late"));
+        long start = System.nanoTime();
+
+        try {
+            newExecutor(new HedgedRequestConfig(false, 0, 0, 3, 10000, 200)).execute(attempts, null, flow);
+            fail("The retry is not bounded by the deadline");
+        } catch (IOException e) {
+            assertEquals(e.getMessage(), "read");
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        }
+        assertEquals(attempts.created.size(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testRequestOnTheCallingThreadIsBoundedByTheDeadline() throws InterruptedException {
+        executor.shutdownNow();
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.hang());
+        long start = System.nanoTime();
+
+        try {
+            newExecutor(config(true, 20, 2, 200)).execute(attempts, null, flow);
+            fail("The deadline is not applied to the request on the calling thread");
+        } catch (SocketTimeoutException e) {
+            assertElapsedAbout(start, 200);
+        } catch (IOException e) {
+            fail("Unexpected failure", e);
+        }
+        assertEquals(attempts.created.size(), 1);
+        assertTrue(attempts.created.get(0).awaitAbort());
+    }
+
+    @Test(timeOut = 10000)
+    public void testRequestOnTheCallingThreadFailsAsIs() {
+        executor.shutdownNow();
+        ScriptedAttempts attempts = new ScriptedAttempts(Outcome.failure(new NoHttpResponseException("dropped")));
+
+        try {
+            newExecutor(config(true, 20, 2, 5000)).execute(attempts, null, flow);
+            fail("The failure is not rethrown");
+        } catch (IOException e) {
+            assertTrue(e instanceof NoHttpResponseException);
+        }
+    }
+
+    @Test
+    public void testTransientFailures() {
+        assertTrue(HedgedRequestExecutor.isTransient(new SocketTimeoutException("read")));
+        assertTrue(HedgedRequestExecutor.isTransient(new ConnectTimeoutException("connect")));
+        assertTrue(HedgedRequestExecutor.isTransient(new NoHttpResponseException("dropped")));
+        assertTrue(HedgedRequestExecutor.isTransient(new SocketException("reset")));
+        assertTrue(HedgedRequestExecutor.isTransient(new UnexpectedResponseException(503, "unavailable")));
+        assertTrue(HedgedRequestExecutor.isTransient(new UnexpectedResponseException(429, "throttled")));
+
+        assertFalse(HedgedRequestExecutor.isTransient(new ConnectionPoolTimeoutException("pool")));
+        assertFalse(HedgedRequestExecutor.isTransient(new InterruptedIOException("interrupted")));
+        assertFalse(HedgedRequestExecutor.isTransient(new CircuitBreakerOpenException("open")));
+        assertFalse(HedgedRequestExecutor.isTransient(new UnexpectedResponseException(400, "bad request")));
+        assertFalse(HedgedRequestExecutor.isTransient(new IOException("malformed")));
+    }
+
+    private HedgedRequestExecutor newExecutor(HedgedRequestConfig config) {
+        return new HedgedRequestExecutor(config, executor, scheduler);
+    }
+
+    private static HedgedRequestConfig config(boolean hedging, int hedgeDelay, int maxRetries, int deadline) {
+        return new HedgedRequestConfig(hedging, hedgeDelay, 0, maxRetries, 1, deadline);
+    }
+
+    private static void assertElapsedAbout(long start, long millis) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= millis - 5 && elapsed < millis + 1000, "Elapsed " + elapsed + " ms");
+    }
+
+    /**
+     * Outcome of a scripted attempt.
+     */
+    private static class Outcome {
+
+        private final String result;
+        private final IOException failure;
+
+        private Outcome(String result, IOException failure) {
+            this.result = result;
+            this.failure = failure;
+        }
+
+        static Outcome success(String result) {
+            return new Outcome(result, null);
+        }
+
+        static Outcome failure(IOException failure) {
+            return new Outcome(null, failure);
+        }
+
+        static Outcome hang() {
+            return new Outcome(null, null);
+        }
+    }
+
+    /**
+     * Attempt which completes with its outcome, or hangs until it is aborted.
+     */
+    private static class ScriptedAttempt implements HedgedRequestExecutor.Attempt<String> {
+
+        private final Outcome outcome;
+        private final CountDownLatch aborted = new CountDownLatch(1);
+
+        ScriptedAttempt(Outcome outcome) {
+            this.outcome = outcome;
+        }
+
+        @Override
+        public String call() throws IOException {
+            if (outcome.failure != null) {
+                throw outcome.failure;
+            }
+            if (outcome.result != null) {
+                return outcome.result;
+            }
+            try {
+                aborted.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Request aborted");
+        }
+
+        @Override
+        public void abort() {
+            aborted.countDown();
+        }
+
+        boolean awaitAbort() {
+            try {
+                return aborted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Creates attempts with the scripted outcomes in order.
+     */
+    private static class ScriptedAttempts implements HedgedRequestExecutor.AttemptFactory<String> {
+
+        private final List<Outcome> outcomes;
+        private final List<ScriptedAttempt> created = Collections.synchronizedList(new ArrayList<ScriptedAttempt>());
+
+        ScriptedAttempts(Outcome... outcomes) {
+            this.outcomes = Arrays.asList(outcomes);
+        }
+
+        @Override
+        public HedgedRequestExecutor.Attempt<String> newAttempt() {
+            ScriptedAttempt attempt = new ScriptedAttempt(outcomes.get(created.size()));
+            created.add(attempt);
+            return attempt;
+        }
+    }
+}
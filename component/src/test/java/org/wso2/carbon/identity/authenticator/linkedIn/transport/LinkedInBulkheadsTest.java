@@ -0,0 +1,104 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class LinkedInBulkheadsTest {
+
+    @Test
+    public void testLimitsAreOffByDefault() throws Exception {
+        LinkedInBulkheads bulkheads = LinkedInBulkheads.fromParameters(Collections.<String, String>emptyMap());
+
+        assertNull(bulkheads.getTenantBulkhead("carbon.super"));
+        assertNull(bulkheads.getIdpBulkhead("carbon.super", "LinkedIn", 0, 10));
+        for (int i = 0; i < 100; i++) {
+            bulkheads.acquire("carbon.super", "LinkedIn", 0, 10);
+        }
+    }
+
+    @Test
+    public void testTenantLimit() throws Exception {
+        LinkedInBulkheads bulkheads = LinkedInBulkheads.fromParameters(Collections.singletonMap(
+                LinkedInAuthenticatorConstants.TENANT_MAX_CONCURRENT_REQUESTS, "1"));
+        LinkedInBulkheads.Permit permit = bulkheads.acquire("carbon.super", "LinkedIn", 0, 0);
+
+        try {
+            bulkheads.acquire("carbon.super", "LinkedIn-v2", 0, 0);
+            fail("The tenant limit is not applied");
+        } catch (BulkheadFullException e) {
+            assertEquals(bulkheads.getTenantBulkhead("carbon.super").getRejectedCount(), 1);
+        }
+        // other tenants have their own limit
+        bulkheads.acquire("wso2.com", "LinkedIn", 0, 0);
+
+        permit.release();
+        bulkheads.acquire("carbon.super", "LinkedIn-v2", 0, 0);
+    }
+
+    @Test
+    public void testTenantRejectionReleasesTheIdpPermit() throws Exception {
+        LinkedInBulkheads bulkheads = new LinkedInBulkheads(1, 0, 0);
+        bulkheads.acquire("carbon.super", "LinkedIn", 0, 0);
+
+        try {
+            bulkheads.acquire("carbon.super", "LinkedIn-v2", 5, 0);
+            fail("The tenant limit is not applied");
+        } catch (BulkheadFullException e) {
+            assertEquals(bulkheads.getIdpBulkhead("carbon.super", "LinkedIn-v2", 5, 0).getActiveCalls(), 0);
+        }
+    }
+
+    @Test
+    public void testIdpLimit() throws Exception {
+        LinkedInBulkheads bulkheads = new LinkedInBulkheads(0, 0, 0);
+        LinkedInBulkheads.Permit permit = bulkheads.acquire("carbon.super", "LinkedIn", 1, 0);
+
+        try {
+            bulkheads.acquire("carbon.super", "LinkedIn", 1, 0);
+            fail("The identity provider limit is not applied");
+        } catch (BulkheadFullException e) {
+            // expected
+        }
+        bulkheads.acquire("carbon.super", "LinkedIn-v2", 1, 0);
+
+        permit.release();
+        bulkheads.acquire("carbon.super", "LinkedIn", 1, 0);
+    }
+
+    @Test
+    public void testIdpBulkheadIsReplacedWhenLimitsChange() {
+        LinkedInBulkheads bulkheads = new LinkedInBulkheads(0, 0, 0);
+        Bulkhead bulkhead = bulkheads.getIdpBulkhead("carbon.super", "LinkedIn", 2, 0);
+
+        assertSame(bulkheads.getIdpBulkhead("carbon.super", "LinkedIn", 2, 0), bulkhead);
+        Bulkhead updated = bulkheads.getIdpBulkhead("carbon.super", "LinkedIn", 4, 0);
+        assertNotSame(updated, bulkhead);
+        assertEquals(updated.getMaxConcurrentCalls(), 4);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class LinkedInHttpTransportTest {
+
+    private HttpServer server;
+    private LinkedInHttpTransport transport;
+    private final Map<String, String> parameters = new HashMap<>();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", new StatusHandler(200));
+        server.createContext("/error", new StatusHandler(500));
+        server.start();
+        parameters.put(LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_MINIMUM_CALLS, "2");
+        parameters.put(LinkedInAuthenticatorConstants.CIRCUIT_BREAKER_WINDOW_SIZE, "10");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+        server.stop(0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testPoolTimeoutsDoNotOpenTheCircuit() throws IOException {
+        parameters.put(LinkedInAuthenticatorConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE, "1");
+        parameters.put(LinkedInAuthenticatorConstants.HTTP_CONNECTION_REQUEST_TIMEOUT, "20");
+        parameters.put(LinkedInAuthenticatorConstants.ADAPTIVE_TIMEOUT_ENABLED, "true");
+        transport = new LinkedInHttpTransport(LinkedInHttpTransportConfig.fromParameters(parameters));
+
+        // the open response holds the only connection of the route
+        try (CloseableHttpResponse response = transport.execute(new HttpGet(url("/ok")))) {
+            assertEquals(response.getStatusLine().getStatusCode(), 200);
+            for (int i = 0; i < 4; i++) {
+                try {
+                    transport.execute(new HttpGet(url("/ok"))).close();
+                    fail("A connection is leased from the exhausted pool");
+                } catch (ConnectionPoolTimeoutException e) {
+                    // expected
+                }
+            }
+            assertEquals(transport.getCircuitState(URI.create(url("/ok"))), CircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testFieldSelectorsShareTheEndpoint() throws IOException {
+        transport = new LinkedInHttpTransport(LinkedInHttpTransportConfig.fromParameters(parameters));
+
+        transport.execute(new HttpGet(url("/error/~:(id,first-name)?format=json"))).close();
+        transport.execute(new HttpGet(url("/error/~:(id,last-name)?format=json"))).close();
+
+        assertEquals(transport.getCircuitState(URI.create(url("/error/~:(id,headline)?format=json"))),
+                     CircuitBreaker.State.OPEN);
+        assertEquals(transport.getCircuitState(URI.create(url("/error/~"))), CircuitBreaker.State.OPEN);
+        assertEquals(transport.getCircuitState(URI.create(url("/ok"))), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testEndpointPath() {
+        assertEquals(LinkedInHttpTransport.getEndpointPath("/v1/people/~:(id,first-name)"), "/v1/people/~");
+        assertEquals(LinkedInHttpTransport.getEndpointPath("/v2/me"), "/v2/me");
+        assertEquals(LinkedInHttpTransport.getEndpointPath(null), "");
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Responds with a fixed status and a short body.
+     */
+    private static class StatusHandler implements HttpHandler {
+
+        private final int status;
+
+        StatusHandler(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.exception.ApplicationAuthenticatorException;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.authenticator.linkedIn.LinkedInAuthenticatorConstants;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.ClaimMappingRegistry;
+import org.wso2.carbon.identity.authenticator.linkedIn.claim.CompactClaimMap;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LinkedInMetrics;
+import org.wso2.carbon.identity.authenticator.linkedIn.metrics.LoginFlow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class LinkedInUserInfoClientTest {
+
+    private static final String PROFILE = "{\"id\":\"m1\",\"localizedFirstName\":\"Jane\"}";
+    private static final String EMAIL_ADDRESS = "{\"elements\":[{\"handle~\":{\"emailAddress\":\"jane@example.com\"}," +
+                                                "\"handle\":\"urn:li:emailAddress:1\"}]}";
+
+    private HttpServer server;
+    private LinkedInHttpTransport transport;
+    private CountDownLatch emailAddressRequested;
+    private CountDownLatch emailAddressReleased;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        emailAddressRequested = new CountDownLatch(1);
+        emailAddressReleased = new CountDownLatch(1);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(LinkedInAuthenticatorConstants.HTTP_READ_TIMEOUT, "30000");
+        parameters.put(LinkedInAuthenticatorConstants.USER_INFO_DEADLINE, "500");
+        transport = new LinkedInHttpTransport(LinkedInHttpTransportConfig.fromParameters(parameters));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        emailAddressReleased.countDown();
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testProfileAndEmailAddressAreMerged() throws ApplicationAuthenticatorException {
+        server.createContext("/v2/me", new FixedResponse(200, PROFILE, null));
+        server.createContext("/v2/emailAddress", new FixedResponse(200, EMAIL_ADDRESS, null));
+        server.start();
+
+        CompactClaimMap claims = transport.getUserInfoClient().fetchClaimsV2(url("/v2/me"), url("/v2/emailAddress"),
+                                                                             "token", newFlow());
+
+        assertEquals(claims.get(mapping(LinkedInAuthenticatorConstants.USER_ID)), "m1");
+        assertEquals(claims.get(mapping(LinkedInAuthenticatorConstants.FIRST_NAME)), "Jane");
+        assertEquals(claims.get(mapping(LinkedInAuthenticatorConstants.EMAIL_ADDRESS)), "jane@example.com");
+    }
+
+    @Test(timeOut = 10000)
+    public void testEmailAddressRequestIsAbortedWhenProfileFails() throws InterruptedException {
+        // the profile request fails once the email address request is waiting for its response
+        server.createContext("/v2/me", new FixedResponse(500, "{}", emailAddressRequested));
+        server.createContext("/v2/emailAddress", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                emailAddressRequested.countDown();
+                try {
+                    emailAddressReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+
+        try {
+            transport.getUserInfoClient().fetchClaimsV2(url("/v2/me"), url("/v2/emailAddress"), "token", newFlow());
+            fail("The profile failure is not thrown");
+        } catch (ApplicationAuthenticatorException e) {
+            assertTrue(e.getMessage().contains("500"), e.getMessage());
+        }
+        // the email address request no longer waits for its response, which the server still holds back
+        ThreadPoolExecutor userInfoExecutor = (ThreadPoolExecutor) transport.getUserInfoExecutor();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (userInfoExecutor.getActiveCount() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(userInfoExecutor.getActiveCount(), 0);
+        assertEquals(emailAddressReleased.getCount(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testTricklingEmailAddressResponseIsBoundedByTheDeadline() throws InterruptedException {
+        server.createContext("/v2/me", new FixedResponse(200, PROFILE, null));
+        server.createContext("/v2/emailAddress", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // each byte arrives well within the read timeout, the whole response never does
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    while (!emailAddressReleased.await(50, TimeUnit.MILLISECONDS)) {
+                        out.write(' ');
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        long start = System.nanoTime();
+
+        try {
+            transport.getUserInfoClient().fetchClaimsV2(url("/v2/me"), url("/v2/emailAddress"), "token", newFlow());
+            fail("The email address response is awaited past the deadline");
+        } catch (ApplicationAuthenticatorException e) {
+            assertTrue(e.getMessage().contains("within 500 ms"), e.getMessage());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        // the email address request was aborted, which frees its thread
+        ThreadPoolExecutor userInfoExecutor = (ThreadPoolExecutor) transport.getUserInfoExecutor();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (userInfoExecutor.getActiveCount() > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(userInfoExecutor.getActiveCount(), 0);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static LoginFlow newFlow() {
+        return LoginFlow.start(new LinkedInMetrics(null, null), null);
+    }
+
+    private static ClaimMapping mapping(String field) {
+        return ClaimMappingRegistry.LINKEDIN.getClaimMapping(field);
+    }
+
+    /**
+     * Responds with a fixed status and body, optionally once a latch is released.
+     */
+    private static class FixedResponse implements HttpHandler {
+
+        private final int status;
+        private final byte[] body;
+        private final CountDownLatch latch;
+
+        FixedResponse(int status, String body, CountDownLatch latch) {
+            this.status = status;
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+            this.latch = latch;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
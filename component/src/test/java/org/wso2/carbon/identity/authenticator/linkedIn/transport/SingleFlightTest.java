@@ -0,0 +1,254 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.wso2.carbon.identity.authenticator.linkedIn.transport;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.exception.AuthenticationFailedException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SingleFlightTest {
+
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSequentialCallsAreNotCoalesced() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(singleFlight.execute("code", countingCall(calls, "first")), "first");
+        assertEquals(singleFlight.execute("code", countingCall(calls, "second")), "second");
+        assertEquals(calls.get(), 2);
+        assertEquals(singleFlight.size(), 0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testConcurrentCallsAreCoalesced() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return singleFlight.execute("code", new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        calls.incrementAndGet();
+                        started.countDown();
+                        release.await();
+                        return "claims";
+                    }
+                });
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Waiter second = new Waiter(singleFlight, "code", countingCall(calls, "duplicate"));
+        second.start();
+        awaitWaiting(second);
+        assertEquals(singleFlight.size(), 1);
+
+        release.countDown();
+
+        assertEquals(first.get(), "claims");
+        second.join();
+        assertEquals(second.result, "claims");
+        assertEquals(calls.get(), 1);
+        assertEquals(singleFlight.size(), 0);
+    }
+
+    @Test(timeOut = 10000)
+    public void testDifferentKeysAreNotCoalesced() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(blockingExecute(singleFlight, "code-1", started, release));
+        Future<String> second = executor.submit(blockingExecute(singleFlight, "code-2", started, release));
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(singleFlight.size(), 2);
+        release.countDown();
+
+        assertEquals(first.get(), "code-1");
+        assertEquals(second.get(), "code-2");
+    }
+
+    @Test
+    public void testExceptionIsRethrownToTheCaller() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final AuthenticationFailedException error = new AuthenticationFailedException("Invalid code");
+
+        try {
+            singleFlight.execute("code", new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw error;
+                }
+            });
+            fail("The exception of the call is not rethrown");
+        } catch (AuthenticationFailedException e) {
+            assertSame(e, error);
+        }
+        assertEquals(singleFlight.size(), 0);
+    }
+
+    @Test
+    public void testUnexpectedExceptionIsWrapped() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final IllegalStateException error = new IllegalStateException("Broken");
+
+        try {
+            singleFlight.execute("code", new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw error;
+                }
+            });
+            fail("The exception of the call is not rethrown");
+        } catch (AuthenticationFailedException e) {
+            assertSame(e.getCause(), error);
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testExceptionIsSharedWithWaitingCallers() throws Exception {
+        final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AuthenticationFailedException error = new AuthenticationFailedException("Invalid code");
+
+        Future<String> first = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return singleFlight.execute("code", new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        started.countDown();
+                        release.await();
+                        throw error;
+                    }
+                });
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Waiter second = new Waiter(singleFlight, "code", countingCall(new AtomicInteger(), "duplicate"));
+        second.start();
+        awaitWaiting(second);
+
+        release.countDown();
+
+        try {
+            first.get();
+            fail("The exception of the call is not rethrown");
+        } catch (ExecutionException e) {
+            assertSame(e.getCause(), error);
+        }
+        second.join();
+        assertTrue(second.error instanceof AuthenticationFailedException);
+        assertNotSame(second.error, error);
+        assertSame(second.error.getCause(), error);
+        assertEquals(second.error.getMessage(), "Invalid code");
+    }
+
+    private static Callable<String> countingCall(final AtomicInteger calls, final String result) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                calls.incrementAndGet();
+                return result;
+            }
+        };
+    }
+
+    private static Callable<String> blockingExecute(final SingleFlight<String, String> singleFlight, final String key,
+                                                    final CountDownLatch started, final CountDownLatch release) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return singleFlight.execute(key, new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        started.countDown();
+                        release.await();
+                        return key;
+                    }
+                });
+            }
+        };
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Caller which arrives while a call with the same key is in flight.
+     */
+    private static class Waiter extends Thread {
+
+        private final SingleFlight<String, String> singleFlight;
+        private final String key;
+        private final Callable<String> call;
+        private volatile String result;
+        private volatile Exception error;
+
+        Waiter(SingleFlight<String, String> singleFlight, String key, Callable<String> call) {
+            this.singleFlight = singleFlight;
+            this.key = key;
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = singleFlight.execute(key, call);
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+    }
+}